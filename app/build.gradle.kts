@@ -51,6 +51,7 @@ lint {
 
 dependencies {
 implementation("com.google.android.material:material:1.11.0")
+implementation("androidx.recyclerview:recyclerview:1.3.2")
 implementation("com.google.firebase:firebase-firestore:24.9.1")
 implementation("com.google.firebase:firebase-auth:22.3.0")
 implementation("com.google.firebase:firebase-analytics:21.5.0")
@@ -62,4 +63,8 @@ implementation("androidx.browser:browser:1.5.0")
 implementation("com.github.bumptech.glide:glide:4.16.0")
 // For HTTP requests to Cloud Functions (if using Option 2)
 implementation("com.squareup.okhttp3:okhttp:4.12.0")
+// JVM unit tests and microbenchmarks (KeywordMatcherBenchmark)
+testImplementation("junit:junit:4.13.2")
+testImplementation("org.openjdk.jmh:jmh-core:1.37")
+testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
@@ -13,9 +13,12 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * Adapter for displaying chat messages in a RecyclerView.
@@ -23,6 +26,7 @@ import java.util.Locale;
  */
 public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.MessageViewHolder> {
     private List<ChatMessage> messages = new ArrayList<>();
+    private final Set<String> messageIds = new HashSet<>();
     private String currentUserId;
     private String roomId;
     private Context context;
@@ -45,7 +49,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
     public void onBindViewHolder(@NonNull MessageViewHolder holder, int position) {
         ChatMessage message = messages.get(position);
         holder.bind(message, currentUserId);
-        setupDeleteButton(holder, message, position);
+        setupDeleteButton(holder, message);
     }
 
     @Override
@@ -55,38 +59,120 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
 
     public void setMessages(List<ChatMessage> messages) {
         this.messages = messages;
+        messageIds.clear();
+        for (ChatMessage message : messages) {
+            messageIds.add(message.messageId);
+        }
         notifyDataSetChanged();
     }
 
     public void addMessage(ChatMessage message) {
-        messages.add(message);
-        notifyItemInserted(messages.size() - 1);
+        addMessages(Collections.singletonList(message));
+    }
+
+    /**
+     * Add new messages in key order, skipping ones already shown. Messages newer than everything
+     * shown (the usual case) go in with a single range insert at the end; an older one, such as
+     * the message the live window pulls back in after a delete, is inserted where its key belongs.
+     * Returns the number of messages actually added.
+     */
+    public int addMessages(List<ChatMessage> newMessages) {
+        List<ChatMessage> unique = filterNew(newMessages);
+        if (unique.isEmpty()) {
+            return 0;
+        }
+        // Push keys sort in creation order
+        Collections.sort(unique, (a, b) -> compareKeys(a.messageId, b.messageId));
+
+        int firstAppended = 0;
+        while (firstAppended < unique.size() && !messages.isEmpty()
+                && compareKeys(unique.get(firstAppended).messageId,
+                    messages.get(messages.size() - 1).messageId) < 0) {
+            firstAppended++;
+        }
+        for (int i = 0; i < firstAppended; i++) {
+            int position = insertionPoint(unique.get(i).messageId);
+            messages.add(position, unique.get(i));
+            notifyItemInserted(position);
+        }
+        int start = messages.size();
+        messages.addAll(unique.subList(firstAppended, unique.size()));
+        notifyItemRangeInserted(start, unique.size() - firstAppended);
+        return unique.size();
+    }
+
+    /**
+     * ID of the newest message shown, or null if there are none
+     */
+    public String getLastMessageId() {
+        return messages.isEmpty() ? null : messages.get(messages.size() - 1).messageId;
+    }
+
+    private int insertionPoint(String messageId) {
+        int low = 0;
+        int high = messages.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeys(messages.get(mid).messageId, messageId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareKeys(String a, String b) {
+        return (a != null ? a : "").compareTo(b != null ? b : "");
+    }
+
+    /**
+     * Insert a page of older messages (oldest first) above the ones already shown
+     */
+    public void prependMessages(List<ChatMessage> olderMessages) {
+        List<ChatMessage> unique = filterNew(olderMessages);
+        if (unique.isEmpty()) {
+            return;
+        }
+        messages.addAll(0, unique);
+        notifyItemRangeInserted(0, unique.size());
+    }
+
+    private List<ChatMessage> filterNew(List<ChatMessage> candidates) {
+        List<ChatMessage> unique = new ArrayList<>(candidates.size());
+        for (ChatMessage message : candidates) {
+            boolean hasId = message.messageId != null && !message.messageId.isEmpty();
+            if (!hasId || messageIds.add(message.messageId)) {
+                unique.add(message);
+            }
+        }
+        return unique;
     }
 
-    private void setupDeleteButton(MessageViewHolder holder, ChatMessage message, int position) {
+    private void setupDeleteButton(MessageViewHolder holder, ChatMessage message) {
         // Check if user can delete this message (owner or admin)
         ModerationUtils.checkAdminStatus(isAdmin -> {
             boolean canDelete = message.senderId.equals(currentUserId) || isAdmin;
             
             if (canDelete) {
                 holder.deleteButton.setVisibility(View.VISIBLE);
-                holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(message, position));
+                holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(message));
             } else {
                 holder.deleteButton.setVisibility(View.GONE);
             }
         });
     }
 
-    private void showDeleteConfirmation(ChatMessage message, int position) {
+    private void showDeleteConfirmation(ChatMessage message) {
         new AlertDialog.Builder(context)
                 .setTitle("Delete Message")
                 .setMessage("Are you sure you want to delete this message?")
-                .setPositiveButton("Delete", (dialog, which) -> deleteMessage(message, position))
+                .setPositiveButton("Delete", (dialog, which) -> deleteMessage(message))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
-    private void deleteMessage(ChatMessage message, int position) {
+    private void deleteMessage(ChatMessage message) {
         DatabaseReference messageRef = FirebaseDatabase.getInstance()
                 .getReference("chatRooms")
                 .child(roomId)
@@ -95,9 +181,13 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<ChatMessageAdapter.
 
         messageRef.removeValue()
                 .addOnSuccessListener(aVoid -> {
-                    // Remove from local list
-                    messages.remove(position);
-                    notifyItemRemoved(position);
+                    // Remove from local list; look the position up since older pages may have been prepended
+                    int position = messages.indexOf(message);
+                    if (position >= 0) {
+                        messages.remove(position);
+                        messageIds.remove(message.messageId);
+                        notifyItemRemoved(position);
+                    }
                     
                     // Send deletion notification to Admin chat
                     sendDeletionNotificationToAdminChat(message);
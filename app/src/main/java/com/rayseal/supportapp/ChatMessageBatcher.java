@@ -0,0 +1,75 @@
+package com.rayseal.supportapp;
+
+import android.view.Choreographer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers incoming chat messages and hands them over at most once per display frame.
+ * A burst of onChildAdded callbacks (the initial sync, or a busy room) then costs one
+ * adapter update and one layout pass per frame instead of one per message.
+ * Messages are deduplicated by messageId while buffered.
+ * Must be used from the main thread.
+ */
+public class ChatMessageBatcher {
+    private final Map<String, ChatMessage> pending = new LinkedHashMap<>();
+    private final OnMessagesFlushedListener listener;
+    private boolean frameScheduled = false;
+    private boolean released = false;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        flush();
+    };
+
+    public ChatMessageBatcher(OnMessagesFlushedListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queue a message for the next frame
+     */
+    public void add(ChatMessage message) {
+        if (released) {
+            return;
+        }
+        String key = message.messageId != null && !message.messageId.isEmpty()
+            ? message.messageId : String.valueOf(System.identityHashCode(message));
+        pending.put(key, message);
+
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Deliver everything buffered now
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ChatMessage> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        listener.onMessagesFlushed(batch);
+    }
+
+    /**
+     * Drop anything buffered and stop delivering, e.g. when the screen is destroyed
+     */
+    public void release() {
+        released = true;
+        pending.clear();
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+    }
+
+    public interface OnMessagesFlushedListener {
+        void onMessagesFlushed(List<ChatMessage> messages);
+    }
+}
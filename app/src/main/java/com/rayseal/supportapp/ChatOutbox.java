@@ -0,0 +1,309 @@
+package com.rayseal.supportapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Sends chat messages and keeps them until the server has acknowledged them.
+ * Each send is one multi-path updateChildren that writes the message and the room's
+ * lastMessage/lastMessageTime together, so the room summary never disagrees with the messages.
+ * Unacknowledged sends are stored in SharedPreferences, per user, and re-sent in their original
+ * order after the app restarts. Message IDs and timestamps are fixed when a message is queued,
+ * so re-sending is idempotent and doesn't reorder messages.
+ * While offline, writes don't fail: the database client holds them and sends them on reconnect.
+ * Only errors that can clear on their own are retried; anything else (such as a rules rejection)
+ * fails the send straight away.
+ * Must be used from the main thread.
+ */
+public class ChatOutbox {
+    private static final String TAG = "ChatOutbox";
+    private static final String PREFS_NAME = "chat_outbox";
+    private static final String KEY_PENDING = "pending_";
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 2000;
+
+    private static ChatOutbox instance;
+
+    private final SharedPreferences prefs;
+    private final DatabaseReference database;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Queued sends in the order they were made, keyed by message ID
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Map<String, OnSendCompleteListener> listeners = new HashMap<>();
+    // User whose queue is loaded, or null before the first send
+    private String uid;
+    private long serverTimeOffset = 0;
+    private boolean resumed = false;
+    private boolean retryScheduled = false;
+
+    private ChatOutbox(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        database = FirebaseDatabase.getInstance().getReference();
+        // Estimated server time, so queued timestamps line up with other clients' messages
+        FirebaseDatabase.getInstance().getReference(".info/serverTimeOffset")
+            .addValueEventListener(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    Long offset = snapshot.getValue(Long.class);
+                    serverTimeOffset = offset != null ? offset : 0;
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.w(TAG, "Server time offset unavailable", error.toException());
+                }
+            });
+    }
+
+    public static synchronized ChatOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChatOutbox(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a message for a room and send it. The message's ID is assigned here.
+     */
+    public void send(String roomId, ChatMessage message, OnSendCompleteListener listener) {
+        if (!loadCurrentUser()) {
+            listener.onSendComplete(message, false);
+            return;
+        }
+        String messageId = database.child("messages").child(roomId).push().getKey();
+        if (messageId == null) {
+            listener.onSendComplete(message, false);
+            return;
+        }
+        message.messageId = messageId;
+        message.roomId = roomId;
+        message.timestamp = System.currentTimeMillis() + serverTimeOffset;
+
+        JSONObject entry = toEntry(message);
+        if (entry == null) {
+            listener.onSendComplete(message, false);
+            return;
+        }
+        pending.put(messageId, entry);
+        listeners.put(messageId, listener);
+        persist();
+        write(entry);
+    }
+
+    /**
+     * Re-send the signed-in user's messages left over from a previous run, oldest first.
+     * Only runs once per process and user.
+     */
+    public void resumePending() {
+        if (!loadCurrentUser() || resumed) {
+            return;
+        }
+        resumed = true;
+        if (!pending.isEmpty()) {
+            Log.d(TAG, "Re-sending " + pending.size() + " queued chat messages");
+        }
+        writeAllPending();
+    }
+
+    private void writeAllPending() {
+        for (JSONObject entry : new ArrayList<>(pending.values())) {
+            write(entry);
+        }
+    }
+
+    private void write(JSONObject entry) {
+        String roomId = entry.optString("roomId");
+        String messageId = entry.optString("messageId");
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("messageId", messageId);
+        message.put("senderId", entry.optString("senderId"));
+        message.put("senderName", entry.optString("senderName"));
+        message.put("content", entry.optString("content"));
+        message.put("roomId", roomId);
+        message.put("recipientId", "");
+        // The time it was queued, not the time of this write, so re-sends keep their place
+        long timestamp = entry.optLong("timestamp");
+        message.put("timestamp", timestamp);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("messages/" + roomId + "/" + messageId, message);
+        updates.put("chatRooms/" + roomId + "/lastMessage", entry.optString("content"));
+        updates.put("chatRooms/" + roomId + "/lastMessageTime", timestamp);
+
+        // The database client applies writes in the order they are issued, also while offline
+        database.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                finish(messageId, entry, true);
+                return;
+            }
+            if (!pending.containsKey(messageId)) {
+                return; // Already acknowledged, or the outbox was cleared
+            }
+            int attempt = attempts.containsKey(messageId) ? attempts.get(messageId) + 1 : 1;
+            Log.e(TAG, "Failed to send message " + messageId + " (attempt " + attempt + ")", error.toException());
+            if (!isTransient(error) || attempt >= MAX_ATTEMPTS) {
+                finish(messageId, entry, false);
+                return;
+            }
+            attempts.put(messageId, attempt);
+            scheduleRetry(attempt);
+        });
+    }
+
+    /**
+     * Errors that can clear without the message changing; permission denied and the like can't
+     */
+    private static boolean isTransient(DatabaseError error) {
+        switch (error.getCode()) {
+            case DatabaseError.DISCONNECTED:
+            case DatabaseError.NETWORK_ERROR:
+            case DatabaseError.UNAVAILABLE:
+            case DatabaseError.MAX_RETRIES:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Re-send everything still queued, oldest first, so a retried message doesn't jump
+     * ahead of later ones. Already-written messages are just overwritten with the same data.
+     */
+    private void scheduleRetry(int attempt) {
+        if (retryScheduled) {
+            return;
+        }
+        retryScheduled = true;
+        handler.postDelayed(() -> {
+            retryScheduled = false;
+            writeAllPending();
+        }, RETRY_BASE_DELAY_MS << (attempt - 1));
+    }
+
+    /**
+     * Forget the signed-in user's queued messages. Call before signing out.
+     */
+    public void clear() {
+        if (uid != null) {
+            prefs.edit().remove(KEY_PENDING + uid).apply();
+        }
+        reset();
+        uid = null;
+    }
+
+    /**
+     * Switch to the signed-in user's queue if another user's is loaded.
+     * Returns false if nobody is signed in.
+     */
+    private boolean loadCurrentUser() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            return false;
+        }
+        if (!user.getUid().equals(uid)) {
+            reset();
+            uid = user.getUid();
+            restore();
+        }
+        return true;
+    }
+
+    private void reset() {
+        handler.removeCallbacksAndMessages(null);
+        retryScheduled = false;
+        pending.clear();
+        attempts.clear();
+        listeners.clear();
+        resumed = false;
+    }
+
+    private void finish(String messageId, JSONObject entry, boolean success) {
+        if (pending.remove(messageId) == null) {
+            return; // Already acknowledged by an earlier write of the same message
+        }
+        attempts.remove(messageId);
+        persist();
+        OnSendCompleteListener listener = listeners.remove(messageId);
+        if (listener != null) {
+            listener.onSendComplete(fromEntry(entry), success);
+        }
+    }
+
+    private JSONObject toEntry(ChatMessage message) {
+        try {
+            JSONObject entry = new JSONObject();
+            entry.put("roomId", message.roomId);
+            entry.put("messageId", message.messageId);
+            entry.put("senderId", message.senderId);
+            entry.put("senderName", message.senderName);
+            entry.put("content", message.content);
+            entry.put("timestamp", message.timestamp);
+            return entry;
+        } catch (JSONException e) {
+            Log.e(TAG, "Error queuing message", e);
+            return null;
+        }
+    }
+
+    private ChatMessage fromEntry(JSONObject entry) {
+        ChatMessage message = new ChatMessage(entry.optString("senderId"), entry.optString("senderName"),
+            entry.optString("content"), entry.optString("roomId"));
+        message.messageId = entry.optString("messageId");
+        message.timestamp = entry.optLong("timestamp", message.timestamp);
+        return message;
+    }
+
+    private void restore() {
+        String stored = prefs.getString(KEY_PENDING + uid, null);
+        if (stored == null) {
+            return;
+        }
+        try {
+            JSONArray array = new JSONArray(stored);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject entry = array.getJSONObject(i);
+                pending.put(entry.getString("messageId"), entry);
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Discarding unreadable chat outbox", e);
+            pending.clear();
+            prefs.edit().remove(KEY_PENDING + uid).apply();
+        }
+    }
+
+    private void persist() {
+        if (pending.isEmpty()) {
+            prefs.edit().remove(KEY_PENDING + uid).apply();
+            return;
+        }
+        JSONArray array = new JSONArray();
+        for (JSONObject entry : pending.values()) {
+            array.put(entry);
+        }
+        prefs.edit().putString(KEY_PENDING + uid, array.toString()).apply();
+    }
+
+    public interface OnSendCompleteListener {
+        void onSendComplete(ChatMessage message, boolean success);
+    }
+}
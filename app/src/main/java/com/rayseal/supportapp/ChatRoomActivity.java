@@ -15,7 +15,10 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QuerySnapshot;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Activity for real-time messaging within a chat room.
@@ -38,8 +41,17 @@ public class ChatRoomActivity extends AppCompatActivity {
     private String currentUserId;
     private String currentUserName = "Anonymous";
 
+    // Only the latest page of messages is synced live; older history is paged in on scroll
+    private static final int MESSAGE_PAGE_SIZE = 30;
+    private static final int LOAD_OLDER_THRESHOLD = 5;
+
     private DatabaseReference messagesRef;
+    private Query liveMessagesQuery;
     private ChildEventListener messagesListener;
+    private ChatMessageBatcher messageBatcher;
+    private String oldestMessageKey;
+    private boolean loadingOlderMessages = false;
+    private boolean hasOlderMessages = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,6 +87,7 @@ public class ChatRoomActivity extends AppCompatActivity {
         loadUserProfile();
         setupRecyclerView();
         setupMessageListener();
+        ChatOutbox.getInstance(this).resumePending();
 
         // Only join private rooms (public/topic rooms are open to all)
         mDatabase.child("chatRooms").child(roomId).addListenerForSingleValueEvent(new ValueEventListener() {
@@ -108,7 +121,10 @@ public class ChatRoomActivity extends AppCompatActivity {
                         // If user is creator but not in members list, add them
                         if (currentUserId.equals(room.createdBy) && !members.contains(currentUserId)) {
                             members.add(currentUserId);
-                            mDatabase.child("chatRooms").child(roomId).child("members").setValue(members)
+                            Map<String, Object> updates = new HashMap<>();
+                            updates.put("chatRooms/" + roomId + "/members", members);
+                            updates.put("userRooms/" + currentUserId + "/" + roomId, true);
+                            mDatabase.updateChildren(updates)
                                 .addOnSuccessListener(aVoid -> {
                                     android.util.Log.d("ChatRoomActivity", "Successfully added creator to private room members");
                                 })
@@ -168,21 +184,48 @@ public class ChatRoomActivity extends AppCompatActivity {
         layoutManager.setStackFromEnd(true);
         messagesRecyclerView.setLayoutManager(layoutManager);
         messagesRecyclerView.setAdapter(adapter);
+
+        // Page in older history when the user scrolls near the top
+        messagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+                    loadOlderMessages();
+                }
+            }
+        });
     }
 
     /**
-     * Set up real-time listener for new messages in the room.
+     * Set up real-time listener for the latest messages in the room.
+     * Only the last MESSAGE_PAGE_SIZE messages are loaded when the room opens.
      */
     private void setupMessageListener() {
         messagesRef = mDatabase.child("messages").child(roomId);
+        liveMessagesQuery = messagesRef.orderByKey().limitToLast(MESSAGE_PAGE_SIZE);
+
+        // Messages arriving in a burst are inserted and scrolled to once per frame
+        messageBatcher = new ChatMessageBatcher(batch -> {
+            String lastMessageId = adapter.getLastMessageId();
+            adapter.addMessages(batch);
+            // Only follow new messages, not an older one slotted in above them
+            if (!Objects.equals(lastMessageId, adapter.getLastMessageId())) {
+                messagesRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
+            }
+        });
 
         messagesListener = new ChildEventListener() {
             @Override
             public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
                 ChatMessage message = snapshot.getValue(ChatMessage.class);
                 if (message != null) {
-                    adapter.addMessage(message);
-                    messagesRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
+                    message.messageId = snapshot.getKey();
+                    // The paging cursor is the oldest key seen. After a delete the window pulls in
+                    // the message before it, which can be older than anything loaded so far.
+                    if (oldestMessageKey == null || snapshot.getKey().compareTo(oldestMessageKey) < 0) {
+                        oldestMessageKey = snapshot.getKey();
+                    }
+                    messageBatcher.add(message);
                 }
             }
 
@@ -190,7 +233,10 @@ public class ChatRoomActivity extends AppCompatActivity {
             public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {}
 
             @Override
-            public void onChildRemoved(@NonNull DataSnapshot snapshot) {}
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Also fires when a new message pushes the oldest one out of the live window;
+                // that message stays on screen
+            }
 
             @Override
             public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {}
@@ -201,7 +247,48 @@ public class ChatRoomActivity extends AppCompatActivity {
             }
         };
 
-        messagesRef.addChildEventListener(messagesListener);
+        liveMessagesQuery.addChildEventListener(messagesListener);
+    }
+
+    /**
+     * Load the page of messages just before the oldest one on screen.
+     */
+    private void loadOlderMessages() {
+        if (loadingOlderMessages || !hasOlderMessages || oldestMessageKey == null) {
+            return;
+        }
+        loadingOlderMessages = true;
+
+        messagesRef.orderByKey().endBefore(oldestMessageKey).limitToLast(MESSAGE_PAGE_SIZE)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    loadingOlderMessages = false;
+                    List<ChatMessage> olderMessages = new ArrayList<>();
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        ChatMessage message = child.getValue(ChatMessage.class);
+                        if (message != null) {
+                            message.messageId = child.getKey();
+                            olderMessages.add(message);
+                        }
+                    }
+
+                    if (snapshot.getChildrenCount() < MESSAGE_PAGE_SIZE) {
+                        hasOlderMessages = false;
+                    }
+                    if (snapshot.hasChildren()) {
+                        oldestMessageKey = snapshot.getChildren().iterator().next().getKey();
+                    }
+                    adapter.prependMessages(olderMessages);
+                    android.util.Log.d("ChatRoomActivity", "Loaded " + olderMessages.size() + " older messages");
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    loadingOlderMessages = false;
+                    android.util.Log.e("ChatRoomActivity", "Error loading older messages", error.toException());
+                }
+            });
     }
 
     /**
@@ -217,23 +304,13 @@ public class ChatRoomActivity extends AppCompatActivity {
 
         ChatMessage message = new ChatMessage(currentUserId, currentUserName, content, roomId);
 
-        String messageId = messagesRef.push().getKey();
-        if (messageId != null) {
-            message.messageId = messageId;
-
-            messagesRef.child(messageId).setValue(message)
-                .addOnSuccessListener(aVoid -> {
-                    messageInput.setText("");
-
-                    // Update room's last message
-                    DatabaseReference roomRef = mDatabase.child("chatRooms").child(roomId);
-                    roomRef.child("lastMessage").setValue(content);
-                    roomRef.child("lastMessageTime").setValue(message.timestamp);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(ChatRoomActivity.this, "Failed to send message", Toast.LENGTH_SHORT).show();
-                });
-        }
+        // One write for the message and the room summary; queued and retried if the network drops
+        messageInput.setText("");
+        ChatOutbox.getInstance(this).send(roomId, message, (sentMessage, success) -> {
+            if (!success && !isDestroyed()) {
+                Toast.makeText(ChatRoomActivity.this, "Failed to send message", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -270,8 +347,11 @@ public class ChatRoomActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (messagesRef != null && messagesListener != null) {
-            messagesRef.removeEventListener(messagesListener);
+        if (liveMessagesQuery != null && messagesListener != null) {
+            liveMessagesQuery.removeEventListener(messagesListener);
+        }
+        if (messageBatcher != null) {
+            messageBatcher.release();
         }
     }
 
@@ -298,14 +378,13 @@ public class ChatRoomActivity extends AppCompatActivity {
      */
     private void showInviteFriendsDialog() {
         // Get current user's friends
-        firestore.collection("friends")
-                .whereEqualTo("status", "accepted")
+        FriendshipLookup.acceptedFriendships(firestore, currentUserId)
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
                     List<String> friendIds = new ArrayList<>();
                     for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
                         Friend friend = doc.toObject(Friend.class);
-                        if (friend != null && friend.involvesUser(currentUserId)) {
+                        if (friend != null) {
                             friendIds.add(friend.getOtherUserId(currentUserId));
                         }
                     }
@@ -335,23 +414,19 @@ public class ChatRoomActivity extends AppCompatActivity {
 
         List<CheckBox> checkBoxes = new ArrayList<>();
         
-        for (String friendId : friendIds) {
-            // Load friend profile and create checkbox
-            firestore.collection("profiles").document(friendId)
-                    .get()
-                    .addOnSuccessListener(doc -> {
-                        if (doc.exists()) {
-                            Profile profile = doc.toObject(Profile.class);
-                            if (profile != null && profile.privacy.allowChatInvites) {
-                                CheckBox checkBox = new CheckBox(this);
-                                checkBox.setText(profile.displayName.isEmpty() ? "Anonymous" : profile.displayName);
-                                checkBox.setTag(friendId);
-                                layout.addView(checkBox);
-                                checkBoxes.add(checkBox);
-                            }
-                        }
-                    });
-        }
+        // Load all friends' profiles in batched queries and add a checkbox for each
+        ProfileHydrator.getInstance().getAll(friendIds, profiles -> {
+            for (String friendId : friendIds) {
+                Profile profile = profiles.get(friendId);
+                if (profile != null && profile.privacy.allowChatInvites) {
+                    CheckBox checkBox = new CheckBox(this);
+                    checkBox.setText(profile.displayName.isEmpty() ? "Anonymous" : profile.displayName);
+                    checkBox.setTag(friendId);
+                    layout.addView(checkBox);
+                    checkBoxes.add(checkBox);
+                }
+            }
+        });
 
         builder.setView(layout);
 
@@ -398,8 +473,13 @@ public class ChatRoomActivity extends AppCompatActivity {
                     }
                     final int newMembersCount = addedCount; // Make final for lambda
                     
-                    // Update the members list in Firebase
-                    roomRef.child("members").setValue(currentMembers)
+                    // Update the members list and each new member's room index in one write
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("chatRooms/" + roomId + "/members", currentMembers);
+                    for (String friendId : friendIds) {
+                        updates.put("userRooms/" + friendId + "/" + roomId, true);
+                    }
+                    mDatabase.updateChildren(updates)
                         .addOnSuccessListener(aVoid -> {
                             if (newMembersCount > 0) {
                                 Toast.makeText(ChatRoomActivity.this, "Invited " + newMembersCount + " friend(s) to the room!", Toast.LENGTH_SHORT).show();
@@ -5,18 +5,21 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Adapter for displaying chat rooms in a RecyclerView.
  */
 public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.RoomViewHolder> {
-    private List<ChatRoom> rooms = new ArrayList<>();
+    private final AsyncListDiffer<ChatRoom> differ = new AsyncListDiffer<>(this, new RoomDiffCallback());
     private OnRoomClickListener listener;
 
     public interface OnRoomClickListener {
@@ -37,18 +40,39 @@ public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.RoomVi
 
     @Override
     public void onBindViewHolder(@NonNull RoomViewHolder holder, int position) {
-        ChatRoom room = rooms.get(position);
+        ChatRoom room = differ.getCurrentList().get(position);
         holder.bind(room, listener);
     }
 
     @Override
     public int getItemCount() {
-        return rooms.size();
+        return differ.getCurrentList().size();
     }
 
+    /**
+     * Show a new room list; only rooms that were added, moved or changed are rebound
+     */
     public void setRooms(List<ChatRoom> rooms) {
-        this.rooms = rooms;
-        notifyDataSetChanged();
+        differ.submitList(new ArrayList<>(rooms));
+    }
+
+    private static class RoomDiffCallback extends DiffUtil.ItemCallback<ChatRoom> {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatRoom oldRoom, @NonNull ChatRoom newRoom) {
+            return Objects.equals(oldRoom.roomId, newRoom.roomId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatRoom oldRoom, @NonNull ChatRoom newRoom) {
+            int oldMembers = oldRoom.members != null ? oldRoom.members.size() : 0;
+            int newMembers = newRoom.members != null ? newRoom.members.size() : 0;
+            return Objects.equals(oldRoom.roomName, newRoom.roomName)
+                && Objects.equals(oldRoom.topic, newRoom.topic)
+                && Objects.equals(oldRoom.lastMessage, newRoom.lastMessage)
+                && oldRoom.lastMessageTime == newRoom.lastMessageTime
+                && oldRoom.isPrivate == newRoom.isPrivate
+                && oldMembers == newMembers;
+        }
     }
 
     static class RoomViewHolder extends RecyclerView.ViewHolder {
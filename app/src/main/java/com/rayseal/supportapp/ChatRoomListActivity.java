@@ -13,9 +13,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.*;
 import com.google.firebase.firestore.FirebaseFirestore;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Activity for displaying and managing chat rooms.
@@ -33,6 +34,7 @@ public class ChatRoomListActivity extends AppCompatActivity {
 
     private String currentUserId;
     private String currentFilter = "topic"; // topic, public, or private
+    private ChatRoomListModel roomListModel;
 
     private static final String[] TOPIC_ROOMS = {
         "Anxiety", "Depression", "Insomnia",
@@ -58,6 +60,8 @@ public class ChatRoomListActivity extends AppCompatActivity {
         }
         currentUserId = mAuth.getCurrentUser().getUid();
 
+        roomListModel = new ChatRoomListModel(mDatabase, currentUserId, this::onRoomsChanged);
+
         initializeViews();
         setupRecyclerView();
         setupButtons();
@@ -193,106 +197,27 @@ public class ChatRoomListActivity extends AppCompatActivity {
     }
 
     /**
-     * Load rooms based on the current filter.
+     * Show rooms for the given filter. Each tab subscribes once and then stays live,
+     * so switching back to a tab shows its rooms without reloading them.
      */
     private void loadRooms(String filter) {
-        progressBar.setVisibility(View.VISIBLE);
-
-        DatabaseReference roomsRef = mDatabase.child("chatRooms");
-        Query query;
-
-        if (filter.equals("topic")) {
-            // Load topic-based rooms
-            List<String> topicIds = new ArrayList<>();
-            for (String topic : TOPIC_ROOMS) {
-                topicIds.add("topic_" + topic.toLowerCase().replace(" ", "_"));
-            }
-            loadSpecificRooms(topicIds);
-        } else if (filter.equals("public")) {
-            // Load public rooms
-            query = roomsRef.orderByChild("isPrivate").equalTo(false);
-            loadRoomsFromQuery(query);
-        } else {
-            // Load private rooms where user is a member
-            loadPrivateRooms();
-        }
+        roomListModel.show(filter);
     }
 
-    private void loadSpecificRooms(List<String> roomIds) {
-        List<ChatRoom> rooms = new ArrayList<>();
-        final int[] loadedCount = {0};
-
-        for (String roomId : roomIds) {
-            mDatabase.child("chatRooms").child(roomId).addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    ChatRoom room = snapshot.getValue(ChatRoom.class);
-                    if (room != null) {
-                        rooms.add(room);
-                    }
-                    loadedCount[0]++;
-
-                    if (loadedCount[0] == roomIds.size()) {
-                        adapter.setRooms(rooms);
-                        progressBar.setVisibility(View.GONE);
-                    }
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    loadedCount[0]++;
-                    if (loadedCount[0] == roomIds.size()) {
-                        progressBar.setVisibility(View.GONE);
-                    }
-                }
-            });
+    private void onRoomsChanged(String tab, List<ChatRoom> rooms, boolean loaded) {
+        if (!tab.equals(currentFilter)) {
+            return;
         }
+        adapter.setRooms(rooms);
+        progressBar.setVisibility(loaded ? View.GONE : View.VISIBLE);
     }
 
-    private void loadRoomsFromQuery(Query query) {
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<ChatRoom> rooms = new ArrayList<>();
-                for (DataSnapshot roomSnapshot : snapshot.getChildren()) {
-                    ChatRoom room = roomSnapshot.getValue(ChatRoom.class);
-                    if (room != null && !room.roomId.startsWith("topic_")) {
-                        rooms.add(room);
-                    }
-                }
-                adapter.setRooms(rooms);
-                progressBar.setVisibility(View.GONE);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(ChatRoomListActivity.this, "Error loading rooms", Toast.LENGTH_SHORT).show();
-                progressBar.setVisibility(View.GONE);
-            }
-        });
-    }
-
-    private void loadPrivateRooms() {
-        mDatabase.child("chatRooms").addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<ChatRoom> rooms = new ArrayList<>();
-                for (DataSnapshot roomSnapshot : snapshot.getChildren()) {
-                    ChatRoom room = roomSnapshot.getValue(ChatRoom.class);
-                    if (room != null && room.isPrivate && room.members != null && room.members.contains(currentUserId)) {
-                        rooms.add(room);
-                    }
-                }
-                adapter.setRooms(rooms);
-                progressBar.setVisibility(View.GONE);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(ChatRoomListActivity.this, "Error loading rooms", Toast.LENGTH_SHORT).show();
-                progressBar.setVisibility(View.GONE);
-            }
-        });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (roomListModel != null) {
+            roomListModel.release();
+        }
     }
 
     /**
@@ -348,10 +273,15 @@ public class ChatRoomListActivity extends AppCompatActivity {
 
         ChatRoom room = new ChatRoom(roomId, roomName, topic, isPrivate, currentUserId);
 
-        mDatabase.child("chatRooms").child(roomId).setValue(room)
+        // Write the room and the creator's membership index entry together
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("chatRooms/" + roomId, room);
+        updates.put("userRooms/" + currentUserId + "/" + roomId, true);
+
+        mDatabase.updateChildren(updates)
             .addOnSuccessListener(aVoid -> {
+                // The live room list picks the new room up by itself
                 Toast.makeText(this, "Room created successfully!", Toast.LENGTH_SHORT).show();
-                loadRooms(currentFilter);
             })
             .addOnFailureListener(e -> {
                 Toast.makeText(this, "Failed to create room: " + e.getMessage(), Toast.LENGTH_SHORT).show();
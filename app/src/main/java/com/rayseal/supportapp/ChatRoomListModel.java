@@ -0,0 +1,347 @@
+package com.rayseal.supportapp;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live, sorted room lists for the chat room tabs (topic, public and private).
+ * Each tab subscribes once, the first time it is shown, and from then on only applies the
+ * child added/changed/removed deltas it receives, keeping rooms ordered by lastMessageTime.
+ * Switching tabs shows the list that is already in memory instead of re-downloading it,
+ * and last-message previews update as messages arrive.
+ * Must be used from the main thread; call release() when the screen goes away.
+ */
+public class ChatRoomListModel {
+    private static final String TAG = "ChatRoomListModel";
+    public static final String TAB_TOPIC = "topic";
+    public static final String TAB_PUBLIC = "public";
+    public static final String TAB_PRIVATE = "private";
+
+    // Most recent activity first, then by name
+    private static final Comparator<ChatRoom> ROOM_ORDER = (a, b) -> {
+        int byTime = Long.compare(b.lastMessageTime, a.lastMessageTime);
+        if (byTime != 0) {
+            return byTime;
+        }
+        String nameA = a.roomName != null ? a.roomName : "";
+        String nameB = b.roomName != null ? b.roomName : "";
+        return nameA.compareToIgnoreCase(nameB);
+    };
+
+    private final DatabaseReference database;
+    private final String currentUserId;
+    private final OnRoomsChangedListener listener;
+    private final Map<String, Section> sections = new HashMap<>();
+    private final List<Runnable> removals = new ArrayList<>();
+
+    public ChatRoomListModel(DatabaseReference database, String currentUserId, OnRoomsChangedListener listener) {
+        this.database = database;
+        this.currentUserId = currentUserId;
+        this.listener = listener;
+    }
+
+    /**
+     * Start the subscription for a tab if it isn't running yet and deliver its current rooms
+     */
+    public void show(String tab) {
+        Section section = sections.get(tab);
+        if (section == null) {
+            section = new Section(tab);
+            sections.put(tab, section);
+            subscribe(section);
+        }
+        listener.onRoomsChanged(tab, section.snapshot(), section.loaded);
+    }
+
+    /**
+     * Detach every listener
+     */
+    public void release() {
+        for (Runnable removal : removals) {
+            removal.run();
+        }
+        removals.clear();
+        for (Section section : sections.values()) {
+            section.releaseRoomListeners();
+        }
+        sections.clear();
+    }
+
+    private void subscribe(Section section) {
+        DatabaseReference roomsRef = database.child("chatRooms");
+        switch (section.tab) {
+            case TAB_TOPIC:
+                // Topic room IDs all start with "topic_", so one key-range query covers them
+                listenToRooms(section, roomsRef.orderByKey().startAt("topic_").endAt("topic_\uf8ff"));
+                break;
+            case TAB_PUBLIC:
+                listenToRooms(section, roomsRef.orderByChild("isPrivate").equalTo(false));
+                break;
+            default:
+                listenToMemberships(section);
+                break;
+        }
+    }
+
+    private void listenToRooms(Section section, Query query) {
+        ChildEventListener childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                section.upsert(snapshot.getKey(), snapshot.getValue(ChatRoom.class));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                section.upsert(snapshot.getKey(), snapshot.getValue(ChatRoom.class));
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                section.remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {}
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Room list listener cancelled for tab " + section.tab, error.toException());
+                section.markLoaded();
+            }
+        };
+        query.addChildEventListener(childListener);
+        removals.add(() -> query.removeEventListener(childListener));
+
+        // Child events carry no "initial load done" signal; a one-shot read of the same
+        // query is served from the same sync and tells us when it has arrived
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                section.markLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                section.markLoaded();
+            }
+        });
+    }
+
+    /**
+     * Private tab: follow userRooms/{uid} and keep a value listener on each room it lists
+     */
+    private void listenToMemberships(Section section) {
+        DatabaseReference membershipRef = database.child("userRooms").child(currentUserId);
+
+        ChildEventListener membershipListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                section.watchRoom(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {}
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                section.unwatchRoom(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {}
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Membership listener cancelled", error.toException());
+                section.markLoaded();
+            }
+        };
+        membershipRef.addChildEventListener(membershipListener);
+        removals.add(() -> membershipRef.removeEventListener(membershipListener));
+
+        // Rooms joined before the index existed are only indexed once the backfill has run,
+        // even if rooms joined since then already gave the user a non-empty index
+        database.child("userRoomsBackfilled").child(currentUserId)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) {
+                        markLoadedWithMemberships(section, membershipRef);
+                    } else {
+                        // The backfilled rooms show up through the membership listener
+                        backfillMembershipIndex(section);
+                    }
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Failed to read room index backfill marker", error.toException());
+                    markLoadedWithMemberships(section, membershipRef);
+                }
+            });
+    }
+
+    /**
+     * Mark the tab loaded once the memberships already in the index have been delivered
+     */
+    private void markLoadedWithMemberships(Section section, DatabaseReference membershipRef) {
+        membershipRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                section.markLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                section.markLoaded();
+            }
+        });
+    }
+
+    /**
+     * One-off per user: scan all rooms for the user's memberships, write them to userRooms/{uid}
+     * and set userRoomsBackfilled/{uid} in the same update so the scan never runs again
+     */
+    private void backfillMembershipIndex(Section section) {
+        database.child("chatRooms").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Map<String, Object> indexUpdates = new HashMap<>();
+                for (DataSnapshot roomSnapshot : snapshot.getChildren()) {
+                    ChatRoom room = roomSnapshot.getValue(ChatRoom.class);
+                    if (room != null && room.members != null && room.members.contains(currentUserId)) {
+                        indexUpdates.put("userRooms/" + currentUserId + "/" + roomSnapshot.getKey(), true);
+                    }
+                }
+                indexUpdates.put("userRoomsBackfilled/" + currentUserId, true);
+                section.markLoaded();
+
+                database.updateChildren(indexUpdates)
+                    .addOnFailureListener(e -> Log.e(TAG, "Failed to backfill room index", e));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                section.markLoaded();
+            }
+        });
+    }
+
+    private class Section {
+        final String tab;
+        final List<ChatRoom> rooms = new ArrayList<>(); // Kept sorted by ROOM_ORDER
+        final Map<String, ChatRoom> roomsById = new HashMap<>();
+        final Map<String, ValueEventListener> roomListeners = new HashMap<>();
+        boolean loaded = false;
+
+        Section(String tab) {
+            this.tab = tab;
+        }
+
+        boolean accepts(ChatRoom room) {
+            switch (tab) {
+                case TAB_TOPIC:
+                    return true;
+                case TAB_PUBLIC:
+                    return !room.isPrivate && !room.roomId.startsWith("topic_");
+                default:
+                    return room.isPrivate;
+            }
+        }
+
+        void upsert(String roomId, ChatRoom room) {
+            if (roomId == null) {
+                return;
+            }
+            if (room == null || !accepts(room)) {
+                remove(roomId);
+                return;
+            }
+
+            ChatRoom existing = roomsById.put(roomId, room);
+            if (existing != null) {
+                rooms.remove(existing);
+            }
+            int index = Collections.binarySearch(rooms, room, ROOM_ORDER);
+            rooms.add(index < 0 ? -index - 1 : index, room);
+            publish();
+        }
+
+        void remove(String roomId) {
+            ChatRoom existing = roomsById.remove(roomId);
+            if (existing != null) {
+                rooms.remove(existing);
+                publish();
+            }
+        }
+
+        void watchRoom(String roomId) {
+            if (roomId == null || roomListeners.containsKey(roomId)) {
+                return;
+            }
+            ValueEventListener roomListener = new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    upsert(roomId, snapshot.getValue(ChatRoom.class));
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Room listener cancelled for " + roomId, error.toException());
+                    remove(roomId);
+                }
+            };
+            roomListeners.put(roomId, roomListener);
+            database.child("chatRooms").child(roomId).addValueEventListener(roomListener);
+        }
+
+        void unwatchRoom(String roomId) {
+            ValueEventListener roomListener = roomListeners.remove(roomId);
+            if (roomListener != null) {
+                database.child("chatRooms").child(roomId).removeEventListener(roomListener);
+            }
+            remove(roomId);
+        }
+
+        void releaseRoomListeners() {
+            for (Map.Entry<String, ValueEventListener> entry : roomListeners.entrySet()) {
+                database.child("chatRooms").child(entry.getKey()).removeEventListener(entry.getValue());
+            }
+            roomListeners.clear();
+        }
+
+        void markLoaded() {
+            if (!loaded) {
+                loaded = true;
+                publish();
+            }
+        }
+
+        List<ChatRoom> snapshot() {
+            return new ArrayList<>(rooms);
+        }
+
+        private void publish() {
+            if (!loaded) {
+                return; // The initial sync is delivered in one go by markLoaded
+            }
+            listener.onRoomsChanged(tab, snapshot(), loaded);
+        }
+    }
+
+    public interface OnRoomsChangedListener {
+        void onRoomsChanged(String tab, List<ChatRoom> rooms, boolean loaded);
+    }
+}
@@ -13,6 +13,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
@@ -24,6 +25,7 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
     private Context context;
     private FirebaseFirestore firestore;
     private String currentUserId;
+    private OnCommentDeletedListener onCommentDeletedListener;
 
     public CommentAdapter(List<Comment> comments, String postId, Context context) {
         this.comments = comments;
@@ -34,6 +36,10 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
                 ? FirebaseAuth.getInstance().getCurrentUser().getUid() : "";
     }
 
+    public void setOnCommentDeletedListener(OnCommentDeletedListener listener) {
+        this.onCommentDeletedListener = listener;
+    }
+
     @NonNull
     @Override
     public CommentViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -63,7 +69,7 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         }
 
         // Setup delete button
-        setupDeleteButton(holder, comment, position);
+        setupDeleteButton(holder, comment);
     }
 
     @Override
@@ -71,46 +77,44 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         return comments.size();
     }
 
-    public void addComment(Comment comment) {
-        android.util.Log.d("CommentAdapter", "Adding new comment: " + comment.content + " by " + comment.authorName);
-        comments.add(comment);
-        notifyItemInserted(comments.size() - 1);
-        android.util.Log.d("CommentAdapter", "Total comments now: " + comments.size());
-    }
-
-    private void setupDeleteButton(CommentViewHolder holder, Comment comment, int position) {
+    private void setupDeleteButton(CommentViewHolder holder, Comment comment) {
         // Check if user can delete this comment (owner or admin)
         ModerationUtils.checkAdminStatus(isAdmin -> {
             boolean canDelete = comment.userId.equals(currentUserId) || isAdmin;
             
             if (canDelete) {
                 holder.deleteButton.setVisibility(View.VISIBLE);
-                holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(comment, position));
+                holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(comment));
             } else {
                 holder.deleteButton.setVisibility(View.GONE);
             }
         });
     }
 
-    private void showDeleteConfirmation(Comment comment, int position) {
+    private void showDeleteConfirmation(Comment comment) {
         new AlertDialog.Builder(context)
                 .setTitle("Delete Comment")
                 .setMessage("Are you sure you want to delete this comment?")
-                .setPositiveButton("Delete", (dialog, which) -> deleteComment(comment, position))
+                .setPositiveButton("Delete", (dialog, which) -> deleteComment(comment))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
-    private void deleteComment(Comment comment, int position) {
-        firestore.collection("posts")
-                .document(postId)
-                .collection("comments")
-                .document(comment.commentId)
-                .delete()
+    /**
+     * Delete the comment and decrement the post's comment counter in one batch,
+     * mirroring how PostAdapter.submitComment creates it
+     */
+    private void deleteComment(Comment comment) {
+        WriteBatch batch = firestore.batch();
+        batch.delete(firestore.collection("comments").document(comment.commentId));
+        PostCounters.incrementCommentCount(batch, firestore, postId, -1);
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
-                    // Remove from local list
-                    comments.remove(position);
-                    notifyItemRemoved(position);
+                    // Remove from the post's thread, which updates this list
+                    CommentThread.forPost(firestore, postId).remove(comment.commentId);
+                    if (onCommentDeletedListener != null) {
+                        onCommentDeletedListener.onCommentDeleted(comment);
+                    }
                     
                     // Send deletion notification to Admin chat
                     sendDeletionNotificationToAdminChat(comment);
@@ -136,6 +140,10 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         });
     }
 
+    public interface OnCommentDeletedListener {
+        void onCommentDeleted(Comment comment);
+    }
+
     static class CommentViewHolder extends RecyclerView.ViewHolder {
         TextView commentContent, commentAuthorName, deleteButton;
         ImageView commentAuthorPicture;
@@ -0,0 +1,333 @@
+package com.rayseal.supportapp;
+
+import android.os.SystemClock;
+import android.util.Log;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The comments of one post, oldest first, as shown in the comments dialog.
+ * The newest PAGE_SIZE comments are loaded first and older ones a page at a time with
+ * startAfter cursors. While a listener is attached, comments newer than the loaded ones
+ * stream in through docChanges(), so nothing already loaded is read again.
+ * Threads are kept in memory for THREAD_TTL_MS after the dialog closes; reopening the
+ * dialog shows the cached comments and only catches up on newer ones.
+ * Must be used from the main thread.
+ */
+public class CommentThread {
+    private static final String TAG = "CommentThread";
+    public static final int PAGE_SIZE = 25;
+    private static final int MAX_CACHED_THREADS = 20;
+    private static final long THREAD_TTL_MS = 5 * 60 * 1000;
+
+    // Oldest first; the comment ID breaks ties between comments posted in the same millisecond
+    private static final Comparator<Comment> COMMENT_ORDER = (a, b) -> {
+        int byTime = Long.compare(a.timestamp, b.timestamp);
+        if (byTime != 0) {
+            return byTime;
+        }
+        String idA = a.commentId != null ? a.commentId : "";
+        String idB = b.commentId != null ? b.commentId : "";
+        return idA.compareTo(idB);
+    };
+
+    private static final Map<String, CommentThread> threads =
+        new LinkedHashMap<String, CommentThread>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CommentThread> eldest) {
+                return size() > MAX_CACHED_THREADS && eldest.getValue().listener == null;
+            }
+        };
+
+    private final FirebaseFirestore db;
+    private final String postId;
+    private final List<Comment> comments = new ArrayList<>();
+    private final Map<String, Comment> commentsById = new HashMap<>();
+    private DocumentSnapshot oldestCursor;
+    private boolean hasOlder = false;
+    private boolean loaded = false;
+    private boolean loadingOlder = false;
+    private long loadedAt;
+    private int generation = 0; // Bumped on reset so late responses are dropped
+    private ListenerRegistration liveRegistration;
+    private OnThreadChangedListener listener;
+
+    private CommentThread(FirebaseFirestore db, String postId) {
+        this.db = db;
+        this.postId = postId;
+    }
+
+    /**
+     * The (possibly cached) thread for a post
+     */
+    public static CommentThread forPost(FirebaseFirestore db, String postId) {
+        CommentThread thread = threads.get(postId);
+        if (thread == null) {
+            thread = new CommentThread(db, postId);
+            threads.put(postId, thread);
+        }
+        return thread;
+    }
+
+    /**
+     * The loaded comments, oldest first. The list is updated in place; changes are reported
+     * to the attached listener.
+     */
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    /**
+     * Start delivering changes to the listener: loads the first page if it isn't cached
+     * (or the cache is stale) and streams new comments until detach().
+     */
+    public void attach(OnThreadChangedListener listener) {
+        this.listener = listener;
+        if (loaded && SystemClock.elapsedRealtime() - loadedAt > THREAD_TTL_MS) {
+            reset();
+        }
+        if (loaded) {
+            listener.onThreadLoaded();
+            listenForNewComments();
+        } else {
+            loadNewestPage();
+        }
+    }
+
+    /**
+     * Stop listening; the loaded comments stay cached
+     */
+    public void detach() {
+        listener = null;
+        if (liveRegistration != null) {
+            liveRegistration.remove();
+            liveRegistration = null;
+        }
+    }
+
+    private void reset() {
+        generation++;
+        int removed = comments.size();
+        comments.clear();
+        commentsById.clear();
+        oldestCursor = null;
+        hasOlder = false;
+        loaded = false;
+        loadingOlder = false;
+        if (removed > 0 && listener != null) {
+            listener.onCommentsRemoved(0, removed);
+        }
+    }
+
+    private Query commentsQuery() {
+        return db.collection("comments").whereEqualTo("postId", postId);
+    }
+
+    private void loadNewestPage() {
+        final int requestGeneration = generation;
+        commentsQuery()
+            .orderBy("timestamp", Query.Direction.DESCENDING)
+            .limit(PAGE_SIZE)
+            .get()
+            .addOnSuccessListener(querySnapshot -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                for (DocumentSnapshot doc : docs) {
+                    Comment comment = toComment(doc);
+                    if (comment != null && !commentsById.containsKey(comment.commentId)) {
+                        insertSorted(comment);
+                    }
+                }
+                oldestCursor = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+                hasOlder = docs.size() == PAGE_SIZE;
+                loaded = true;
+                loadedAt = SystemClock.elapsedRealtime();
+
+                if (listener != null) {
+                    listener.onThreadLoaded();
+                    listenForNewComments();
+                }
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading comments for post " + postId, e);
+                if (listener != null) {
+                    listener.onLoadError(e);
+                }
+            });
+    }
+
+    /**
+     * Load the next page of older comments and insert them at the top
+     */
+    public void loadOlder() {
+        if (!loaded || !hasOlder || loadingOlder || oldestCursor == null) {
+            return;
+        }
+        loadingOlder = true;
+        final int requestGeneration = generation;
+        commentsQuery()
+            .orderBy("timestamp", Query.Direction.DESCENDING)
+            .startAfter(oldestCursor)
+            .limit(PAGE_SIZE)
+            .get()
+            .addOnSuccessListener(querySnapshot -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loadingOlder = false;
+                List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                List<Comment> older = new ArrayList<>();
+                for (DocumentSnapshot doc : docs) {
+                    Comment comment = toComment(doc);
+                    if (comment != null && !commentsById.containsKey(comment.commentId)) {
+                        older.add(comment);
+                    }
+                }
+                if (!docs.isEmpty()) {
+                    oldestCursor = docs.get(docs.size() - 1);
+                }
+                hasOlder = docs.size() == PAGE_SIZE;
+
+                // Everything in this page is older than what is loaded, so it all goes on top
+                Collections.sort(older, COMMENT_ORDER);
+                for (Comment comment : older) {
+                    commentsById.put(comment.commentId, comment);
+                }
+                comments.addAll(0, older);
+                if (!older.isEmpty() && listener != null) {
+                    listener.onCommentsInserted(0, older.size());
+                }
+            })
+            .addOnFailureListener(e -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loadingOlder = false;
+                Log.e(TAG, "Error loading older comments for post " + postId, e);
+                if (listener != null) {
+                    listener.onLoadError(e);
+                }
+            });
+    }
+
+    /**
+     * Follow comments from the newest loaded one onwards. Anything older is already loaded,
+     * so only the live tail of the thread is billed.
+     */
+    private void listenForNewComments() {
+        if (liveRegistration != null) {
+            return;
+        }
+        long since = comments.isEmpty() ? 0 : comments.get(comments.size() - 1).timestamp;
+        liveRegistration = commentsQuery()
+            .whereGreaterThanOrEqualTo("timestamp", since)
+            .orderBy("timestamp")
+            .addSnapshotListener((snapshots, error) -> {
+                if (error != null) {
+                    Log.e(TAG, "Comment listener failed for post " + postId, error);
+                    return;
+                }
+                if (snapshots == null) {
+                    return;
+                }
+                for (DocumentChange change : snapshots.getDocumentChanges()) {
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        remove(change.getDocument().getId());
+                    } else {
+                        Comment comment = toComment(change.getDocument());
+                        if (comment != null) {
+                            upsert(comment);
+                        }
+                    }
+                }
+                loadedAt = SystemClock.elapsedRealtime();
+            });
+    }
+
+    /**
+     * Add a comment, or replace the one with the same ID, keeping the list ordered
+     */
+    public void upsert(Comment comment) {
+        Comment existing = commentsById.get(comment.commentId);
+        if (existing != null) {
+            int index = comments.indexOf(existing);
+            if (COMMENT_ORDER.compare(existing, comment) == 0) {
+                comments.set(index, comment);
+                commentsById.put(comment.commentId, comment);
+                if (listener != null) {
+                    listener.onCommentChanged(index);
+                }
+                return;
+            }
+            remove(comment.commentId);
+        }
+        int index = insertSorted(comment);
+        if (listener != null) {
+            listener.onCommentsInserted(index, 1);
+        }
+    }
+
+    /**
+     * Drop a comment from the thread, e.g. after deleting it
+     */
+    public void remove(String commentId) {
+        Comment existing = commentsById.remove(commentId);
+        if (existing == null) {
+            return;
+        }
+        int index = comments.indexOf(existing);
+        comments.remove(index);
+        if (listener != null) {
+            listener.onCommentsRemoved(index, 1);
+        }
+    }
+
+    private int insertSorted(Comment comment) {
+        int index = Collections.binarySearch(comments, comment, COMMENT_ORDER);
+        index = index < 0 ? -index - 1 : index;
+        comments.add(index, comment);
+        commentsById.put(comment.commentId, comment);
+        return index;
+    }
+
+    private static Comment toComment(DocumentSnapshot doc) {
+        try {
+            Comment comment = doc.toObject(Comment.class);
+            if (comment != null) {
+                comment.commentId = doc.getId();
+            }
+            return comment;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing comment document: " + doc.getId(), e);
+            return null;
+        }
+    }
+
+    public interface OnThreadChangedListener {
+        void onThreadLoaded();
+        void onCommentsInserted(int position, int count);
+        void onCommentChanged(int position);
+        void onCommentsRemoved(int position, int count);
+        void onLoadError(Exception e);
+    }
+}
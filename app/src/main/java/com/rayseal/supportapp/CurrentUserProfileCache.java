@@ -0,0 +1,149 @@
+package com.rayseal.supportapp;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide cache of the signed-in user's profile.
+ * The profile is loaded once and kept fresh by a single snapshot listener, so adapters can
+ * check the user's name and admin role synchronously instead of reading profiles/{uid} per bind.
+ * All methods are meant to be called on the main thread, where Firestore delivers snapshots.
+ */
+public class CurrentUserProfileCache {
+    private static final String TAG = "CurrentUserProfileCache";
+    private static final CurrentUserProfileCache INSTANCE = new CurrentUserProfileCache();
+
+    private String userId;
+    private Profile profile;
+    private boolean loaded = false;
+    private ListenerRegistration registration;
+    private final List<OnProfileLoadedListener> pendingCallbacks = new ArrayList<>();
+    private final List<OnProfileChangedListener> changeListeners = new ArrayList<>();
+
+    private CurrentUserProfileCache() {}
+
+    public static CurrentUserProfileCache getInstance() {
+        INSTANCE.ensureListening();
+        return INSTANCE;
+    }
+
+    /**
+     * Attach the profile listener for whoever is signed in, switching users if needed
+     */
+    private void ensureListening() {
+        String currentUserId = FirebaseAuth.getInstance().getCurrentUser() != null ?
+            FirebaseAuth.getInstance().getCurrentUser().getUid() : null;
+
+        if (currentUserId == null) {
+            if (userId != null) {
+                clear();
+            }
+            return;
+        }
+        if (currentUserId.equals(userId) && registration != null) {
+            return;
+        }
+
+        clear();
+        userId = currentUserId;
+        android.util.Log.d(TAG, "Listening for profile of user: " + userId);
+        registration = FirebaseFirestore.getInstance()
+            .collection("profiles")
+            .document(userId)
+            .addSnapshotListener((doc, error) -> {
+                if (error != null) {
+                    android.util.Log.e(TAG, "Error listening for current user profile", error);
+                    if (!loaded) {
+                        // Unblock waiting callers with whatever we have
+                        loaded = true;
+                        flushPendingCallbacks();
+                    }
+                    return;
+                }
+
+                boolean wasAdmin = isAdmin();
+                profile = doc != null && doc.exists() ? doc.toObject(Profile.class) : null;
+                loaded = true;
+                flushPendingCallbacks();
+
+                for (OnProfileChangedListener listener : new ArrayList<>(changeListeners)) {
+                    listener.onProfileChanged(profile, wasAdmin != isAdmin());
+                }
+            });
+    }
+
+    /**
+     * Stop listening and forget the cached profile, e.g. on sign out
+     */
+    public void clear() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        userId = null;
+        profile = null;
+        loaded = false;
+        flushPendingCallbacks();
+    }
+
+    /**
+     * Deliver the profile now if it is loaded, otherwise once the first snapshot arrives.
+     * The profile is null if the user is signed out or has no profile document.
+     */
+    public void getProfile(OnProfileLoadedListener callback) {
+        if (loaded || userId == null) {
+            callback.onProfileLoaded(profile);
+        } else {
+            pendingCallbacks.add(callback);
+        }
+    }
+
+    private void flushPendingCallbacks() {
+        List<OnProfileLoadedListener> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        for (OnProfileLoadedListener callback : callbacks) {
+            callback.onProfileLoaded(profile);
+        }
+    }
+
+    /**
+     * Cached profile, or null if not loaded yet
+     */
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isAdmin() {
+        return profile != null && profile.isAdmin;
+    }
+
+    public String getDisplayName() {
+        return profile != null && profile.displayName != null && !profile.displayName.isEmpty()
+            ? profile.displayName : "Anonymous";
+    }
+
+    public void addOnProfileChangedListener(OnProfileChangedListener listener) {
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    public void removeOnProfileChangedListener(OnProfileChangedListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public interface OnProfileLoadedListener {
+        void onProfileLoaded(Profile profile);
+    }
+
+    public interface OnProfileChangedListener {
+        void onProfileChanged(Profile profile, boolean adminStatusChanged);
+    }
+}
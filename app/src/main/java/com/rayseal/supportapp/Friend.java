@@ -1,5 +1,8 @@
 package com.rayseal.supportapp;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Data model for friend relationships.
  * Stores information about friendship between users.
@@ -11,6 +14,7 @@ public class Friend {
     public String status; // "pending", "accepted", "blocked"
     public long timestamp;
     public String requesterId; // Who sent the friend request
+    public List<String> participants; // Both user IDs, for whereArrayContains("participants", uid)
 
     public Friend() {
         // Required empty constructor for Firebase
@@ -20,6 +24,7 @@ public class Friend {
         this.userId1 = userId1;
         this.userId2 = userId2;
         this.requesterId = requesterId;
+        this.participants = Arrays.asList(userId1, userId2);
         this.status = "pending";
         this.timestamp = System.currentTimeMillis();
     }
@@ -37,4 +42,12 @@ public class Friend {
     public boolean involvesUser(String userId) {
         return userId1.equals(userId) || userId2.equals(userId);
     }
+
+    /**
+     * Document ID for the friendship between two users.
+     * The IDs are sorted so both users map to the same document.
+     */
+    public static String pairId(String userIdA, String userIdB) {
+        return userIdA.compareTo(userIdB) < 0 ? userIdA + "_" + userIdB : userIdB + "_" + userIdA;
+    }
 }
\ No newline at end of file
@@ -7,7 +7,6 @@ import android.widget.*;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
-import com.google.firebase.firestore.FirebaseFirestore;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,7 +17,6 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
     private List<Object> items = new ArrayList<>(); // Can contain Friend objects or Profile objects
     private String currentUserId;
     private OnFriendActionListener listener;
-    private FirebaseFirestore firestore;
 
     public interface OnFriendActionListener {
         void onAcceptRequest(Friend friend);
@@ -31,7 +29,6 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
     public FriendAdapter(String currentUserId, OnFriendActionListener listener) {
         this.currentUserId = currentUserId;
         this.listener = listener;
-        this.firestore = FirebaseFirestore.getInstance();
     }
 
     @NonNull
@@ -69,32 +66,27 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
     private void bindFriend(FriendViewHolder holder, Friend friend) {
         String otherUserId = friend.getOtherUserId(currentUserId);
         
-        // Load profile for the other user
-        firestore.collection("profiles").document(otherUserId)
-                .get()
-                .addOnSuccessListener(doc -> {
-                    if (doc.exists()) {
-                        Profile profile = doc.toObject(Profile.class);
-                        if (profile != null) {
-                            String displayName = profile.displayName;
-                            holder.nameText.setText((displayName == null || displayName.isEmpty()) ? "Anonymous" : displayName);
-                            
-                            if (profile.profilePictureUrl != null && !profile.profilePictureUrl.isEmpty()) {
-                                Glide.with(holder.itemView.getContext())
-                                        .load(profile.profilePictureUrl)
-                                        .placeholder(R.drawable.ic_person)
-                                        .into(holder.profileImage);
-                            } else {
-                                holder.profileImage.setImageResource(R.drawable.ic_person);
-                            }
-                        }
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("FriendAdapter", "Failed to load profile for friend", e);
+        // Load profile for the other user; batched and cached across rows
+        holder.itemView.setTag(otherUserId);
+        Profile cached = ProfileHydrator.getInstance().getCached(otherUserId);
+        if (cached != null) {
+            bindFriendProfile(holder, cached);
+        } else {
+            holder.nameText.setText("");
+            holder.profileImage.setImageResource(R.drawable.ic_person);
+            ProfileHydrator.getInstance().get(otherUserId, (userId, profile) -> {
+                // The row may have been recycled for someone else meanwhile
+                if (!userId.equals(holder.itemView.getTag())) {
+                    return;
+                }
+                if (profile != null) {
+                    bindFriendProfile(holder, profile);
+                } else {
                     holder.nameText.setText("Anonymous");
                     holder.profileImage.setImageResource(R.drawable.ic_person);
-                });
+                }
+            });
+        }
 
         if (friend.status.equals("pending") && !friend.requesterId.equals(currentUserId)) {
             // Incoming friend request
@@ -124,14 +116,29 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
         holder.itemView.setOnClickListener(v -> listener.onViewProfile(otherUserId));
     }
 
+    private void bindFriendProfile(FriendViewHolder holder, Profile profile) {
+        String displayName = profile.displayName;
+        holder.nameText.setText((displayName == null || displayName.isEmpty()) ? "Anonymous" : displayName);
+
+        if (profile.profilePictureUrl != null && !profile.profilePictureUrl.isEmpty()) {
+            Glide.with(holder.itemView.getContext())
+                    .load(ImageVariants.avatar(holder.itemView.getContext(), profile))
+                    .placeholder(R.drawable.ic_person)
+                    .into(holder.profileImage);
+        } else {
+            holder.profileImage.setImageResource(R.drawable.ic_person);
+        }
+    }
+
     private void bindProfile(FriendViewHolder holder, Profile profile) {
+        holder.itemView.setTag(profile.uid);
         String displayName = profile.displayName;
         holder.nameText.setText((displayName == null || displayName.isEmpty()) ? "Anonymous" : displayName);
         holder.statusText.setText(""); // Clear status for search results
 
         if (profile.profilePictureUrl != null && !profile.profilePictureUrl.isEmpty()) {
             Glide.with(holder.itemView.getContext())
-                    .load(profile.profilePictureUrl)
+                    .load(ImageVariants.avatar(holder.itemView.getContext(), profile))
                     .placeholder(R.drawable.ic_person)
                     .into(holder.profileImage);
         } else {
@@ -154,15 +161,28 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
     public void setFriends(List<Friend> friends) {
         this.items.clear();
         this.items.addAll(friends);
+        prefetchProfiles(friends);
         notifyDataSetChanged();
     }
 
     public void setFriendRequests(List<Friend> requests) {
         this.items.clear();
         this.items.addAll(requests);
+        prefetchProfiles(requests);
         notifyDataSetChanged();
     }
 
+    /**
+     * Load all listed users' profiles in a few batched queries rather than one read per bound row
+     */
+    private void prefetchProfiles(List<Friend> friends) {
+        List<String> userIds = new ArrayList<>();
+        for (Friend friend : friends) {
+            userIds.add(friend.getOtherUserId(currentUserId));
+        }
+        ProfileHydrator.getInstance().prefetch(userIds);
+    }
+
     public void setSearchResults(List<Profile> profiles) {
         try {
             this.items.clear();
@@ -175,6 +195,18 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendView
         }
     }
 
+    /**
+     * Add another page of search results below the ones already shown
+     */
+    public void appendSearchResults(List<Profile> profiles) {
+        if (profiles == null || profiles.isEmpty()) {
+            return;
+        }
+        int start = items.size();
+        items.addAll(profiles);
+        notifyItemRangeInserted(start, profiles.size());
+    }
+
     public void clearItems() {
         this.items.clear();
         notifyDataSetChanged();
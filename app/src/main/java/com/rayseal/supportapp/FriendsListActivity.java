@@ -2,6 +2,10 @@ package com.rayseal.supportapp;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.*;
 import androidx.annotation.NonNull;
@@ -17,6 +21,9 @@ import java.util.List;
  * Activity for managing friends and friend requests.
  */
 public class FriendsListActivity extends AppCompatActivity {
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private static final int MIN_TYPE_AHEAD_LENGTH = 2;
+
     private RecyclerView friendsRecyclerView;
     private FriendAdapter friendAdapter;
     private ProgressBar progressBar;
@@ -28,6 +35,17 @@ public class FriendsListActivity extends AppCompatActivity {
     private FirebaseFirestore firestore;
     private String currentUserId;
     private String currentView = "friends"; // friends, requests, search
+    private ListenerRegistration listListener; // Friends or requests listener for the current tab
+
+    // Paged user search state
+    private String searchQuery;
+    private DocumentSnapshot searchCursor;
+    private boolean searchHasMore = false;
+    private boolean searchLoading = false;
+    private int searchGeneration = 0;
+    private boolean searchShowsEmptyToast = false;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable typeAheadSearch = () -> startSearch(false);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -67,6 +85,23 @@ public class FriendsListActivity extends AppCompatActivity {
 
         findViewById(R.id.btnBack).setOnClickListener(v -> finish());
         findViewById(R.id.btnSearchUser).setOnClickListener(v -> searchUsers());
+
+        // Type-ahead: search once typing pauses instead of on every keystroke
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchHandler.removeCallbacks(typeAheadSearch);
+                if (currentView.equals("search")) {
+                    searchHandler.postDelayed(typeAheadSearch, SEARCH_DEBOUNCE_MS);
+                }
+            }
+        });
     }
 
     private void setupRecyclerView() {
@@ -100,24 +135,40 @@ public class FriendsListActivity extends AppCompatActivity {
             }
         });
 
-        friendsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        friendsRecyclerView.setLayoutManager(layoutManager);
         friendsRecyclerView.setAdapter(friendAdapter);
+
+        // Load more search results near the end of the list
+        friendsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && currentView.equals("search")
+                        && layoutManager.findLastVisibleItemPosition() >= friendAdapter.getItemCount() - 5) {
+                    loadNextSearchPage();
+                }
+            }
+        });
     }
 
     private void setupButtons() {
         btnFriends.setOnClickListener(v -> {
+            cancelSearch();
             currentView = "friends";
             updateButtonStyles();
             loadFriends();
         });
 
         btnRequests.setOnClickListener(v -> {
+            cancelSearch();
             currentView = "requests";
             updateButtonStyles();
             loadFriendRequests();
         });
 
         btnSearch.setOnClickListener(v -> {
+            cancelSearch();
+            removeListListener();
             currentView = "search";
             updateButtonStyles();
             friendAdapter.clearItems();
@@ -146,9 +197,9 @@ public class FriendsListActivity extends AppCompatActivity {
     }
 
     private void loadFriends() {
+        removeListListener();
         progressBar.setVisibility(View.VISIBLE);
-        firestore.collection("friends")
-                .whereEqualTo("status", "accepted")
+        listListener = FriendshipLookup.acceptedFriendships(firestore, currentUserId)
                 .addSnapshotListener((snapshots, error) -> {
                     if (error != null) {
                         Toast.makeText(this, "Error loading friends", Toast.LENGTH_SHORT).show();
@@ -160,7 +211,7 @@ public class FriendsListActivity extends AppCompatActivity {
                     if (snapshots != null) {
                         for (DocumentSnapshot doc : snapshots.getDocuments()) {
                             Friend friend = doc.toObject(Friend.class);
-                            if (friend != null && friend.involvesUser(currentUserId)) {
+                            if (friend != null) {
                                 friend.friendshipId = doc.getId();
                                 friends.add(friend);
                             }
@@ -172,8 +223,9 @@ public class FriendsListActivity extends AppCompatActivity {
     }
 
     private void loadFriendRequests() {
+        removeListListener();
         progressBar.setVisibility(View.VISIBLE);
-        firestore.collection("friends")
+        listListener = firestore.collection("friends")
                 .whereEqualTo("status", "pending")
                 .whereEqualTo("userId2", currentUserId) // Requests sent TO current user
                 .addSnapshotListener((snapshots, error) -> {
@@ -198,139 +250,139 @@ public class FriendsListActivity extends AppCompatActivity {
                 });
     }
 
+    private void removeListListener() {
+        if (listListener != null) {
+            listListener.remove();
+            listListener = null;
+        }
+    }
+
     private void searchUsers() {
-        String query = searchInput.getText().toString().trim();
-        if (query.isEmpty()) {
+        searchHandler.removeCallbacks(typeAheadSearch);
+        if (searchInput.getText().toString().trim().isEmpty()) {
             Toast.makeText(this, "Please enter a search term", Toast.LENGTH_SHORT).show();
             return;
         }
+        startSearch(true);
+    }
 
-        progressBar.setVisibility(View.VISIBLE);
-        
-        // Convert query to lowercase for case-insensitive search
-        String lowercaseQuery = query.toLowerCase();
-        
-        // Search for profiles where displayName contains the query (case insensitive)
-        firestore.collection("profiles")
-                .orderBy("displayName")
-                .startAt(query)
-                .endAt(query + "\uf8ff")
-                .limit(50)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<Profile> profiles = new ArrayList<>();
-                    try {
-                        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                            try {
-                                Profile profile = doc.toObject(Profile.class);
-                                if (profile != null && profile.uid != null && !profile.uid.equals(currentUserId)) {
-                                    // Also check if the lowercase displayName contains the lowercase query
-                                    String profileName = profile.displayName != null ? profile.displayName.toLowerCase() : "";
-                                    String actualName = profile.actualName != null ? profile.actualName.toLowerCase() : "";
-                                    if (profileName.contains(lowercaseQuery) || actualName.contains(lowercaseQuery)) {
-                                        profiles.add(profile);
-                                    }
-                                }
-                            } catch (Exception e) {
-                                // Skip individual profile that fails to parse
-                                android.util.Log.w("FriendsListActivity", "Failed to parse profile: " + e.getMessage());
-                            }
-                        }
-                        
-                        // If no results from the ordered search, try a broader search
-                        if (profiles.isEmpty()) {
-                            performBroaderSearch(lowercaseQuery, query);
-                        } else {
-                            if (friendAdapter != null) {
-                                friendAdapter.setSearchResults(profiles);
-                            }
-                            progressBar.setVisibility(View.GONE);
-                        }
-                    } catch (Exception e) {
-                        android.util.Log.e("FriendsListActivity", "Error processing search results", e);
-                        Toast.makeText(this, "Search error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        progressBar.setVisibility(View.GONE);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("FriendsListActivity", "Search failed", e);
-                    Toast.makeText(this, "Search failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    progressBar.setVisibility(View.GONE);
-                });
+    /**
+     * Start a new search for the text in the search box. Responses to earlier searches that are
+     * still in flight are ignored when they arrive.
+     */
+    private void startSearch(boolean explicit) {
+        String query = searchInput.getText().toString().trim();
+        String token = UserSearch.tokenFor(query);
+        if (!explicit && token.equals(UserSearch.tokenFor(searchQuery))) {
+            return; // Same search as the one already shown
+        }
+
+        cancelSearch();
+        friendAdapter.clearItems();
+        if (token.isEmpty() || (!explicit && token.length() < MIN_TYPE_AHEAD_LENGTH)) {
+            // Too short to be useful while typing
+            progressBar.setVisibility(View.GONE);
+            return;
+        }
+
+        searchQuery = query;
+        searchHasMore = true;
+        searchShowsEmptyToast = explicit;
+        loadNextSearchPage();
     }
-    
-    private void performBroaderSearch(String lowercaseQuery, String originalQuery) {
-        firestore.collection("profiles")
-                .limit(100)
-                .get()
-                .addOnSuccessListener(allQuerySnapshot -> {
-                    List<Profile> profiles = new ArrayList<>();
-                    try {
-                        for (DocumentSnapshot doc : allQuerySnapshot.getDocuments()) {
-                            try {
-                                Profile profile = doc.toObject(Profile.class);
-                                if (profile != null && profile.uid != null && !profile.uid.equals(currentUserId)) {
-                                    String profileName = profile.displayName != null ? profile.displayName.toLowerCase() : "";
-                                    String actualName = profile.actualName != null ? profile.actualName.toLowerCase() : "";
-                                    if (profileName.contains(lowercaseQuery) || actualName.contains(lowercaseQuery)) {
-                                        profiles.add(profile);
-                                    }
-                                }
-                            } catch (Exception e) {
-                                // Skip individual profile that fails to parse
-                                android.util.Log.w("FriendsListActivity", "Failed to parse profile in broader search: " + e.getMessage());
-                            }
-                        }
-                        
-                        if (profiles.isEmpty()) {
-                            Toast.makeText(this, "No users found matching '" + originalQuery + "'", Toast.LENGTH_SHORT).show();
-                        }
-                        
-                        if (friendAdapter != null) {
-                            friendAdapter.setSearchResults(profiles);
-                        }
-                        progressBar.setVisibility(View.GONE);
-                    } catch (Exception e) {
-                        android.util.Log.e("FriendsListActivity", "Error processing broader search results", e);
-                        Toast.makeText(this, "Search error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        progressBar.setVisibility(View.GONE);
+
+    /**
+     * Drop the current search and any pending or in-flight requests for it
+     */
+    private void cancelSearch() {
+        searchHandler.removeCallbacks(typeAheadSearch);
+        searchGeneration++;
+        searchQuery = null;
+        searchCursor = null;
+        searchHasMore = false;
+        searchLoading = false;
+    }
+
+    /**
+     * Load the next page of results for the current search from the search-token index.
+     */
+    private void loadNextSearchPage() {
+        if (searchLoading || !searchHasMore || searchQuery == null) {
+            return;
+        }
+        searchLoading = true;
+        progressBar.setVisibility(View.VISIBLE);
+        final int requestGeneration = searchGeneration;
+        final boolean firstPage = searchCursor == null;
+
+        UserSearch.searchPage(firestore, searchQuery, searchCursor, new UserSearch.OnSearchPageListener() {
+            @Override
+            public void onSearchPage(List<Profile> profiles, DocumentSnapshot nextCursor) {
+                if (requestGeneration != searchGeneration) {
+                    return; // A newer search has started
+                }
+                searchLoading = false;
+                searchCursor = nextCursor;
+                searchHasMore = nextCursor != null;
+                progressBar.setVisibility(View.GONE);
+                if (!currentView.equals("search")) {
+                    return; // Switched to another tab meanwhile
+                }
+
+                List<Profile> results = new ArrayList<>();
+                for (Profile profile : profiles) {
+                    if (!profile.uid.equals(currentUserId)) {
+                        results.add(profile);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("FriendsListActivity", "Broader search failed", e);
-                    Toast.makeText(this, "Search failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    progressBar.setVisibility(View.GONE);
-                });
+                }
+                if (firstPage && searchShowsEmptyToast && results.isEmpty() && !searchHasMore) {
+                    Toast.makeText(FriendsListActivity.this, "No users found matching '" + searchQuery + "'", Toast.LENGTH_SHORT).show();
+                }
+                if (friendAdapter != null) {
+                    friendAdapter.appendSearchResults(results);
+                }
+            }
+
+            @Override
+            public void onSearchError(Exception e) {
+                if (requestGeneration != searchGeneration) {
+                    return;
+                }
+                searchLoading = false;
+                android.util.Log.e("FriendsListActivity", "Search failed", e);
+                Toast.makeText(FriendsListActivity.this, "Search failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                progressBar.setVisibility(View.GONE);
+            }
+        });
     }
 
     private void sendFriendRequest(String targetUserId) {
         // Check if friendship already exists
-        firestore.collection("friends")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    boolean alreadyExists = false;
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        Friend existing = doc.toObject(Friend.class);
-                        if (existing != null && existing.involvesUser(currentUserId) && existing.involvesUser(targetUserId)) {
-                            alreadyExists = true;
-                            break;
-                        }
-                    }
+        FriendshipLookup.find(firestore, currentUserId, targetUserId, new FriendshipLookup.OnFriendshipFoundListener() {
+            @Override
+            public void onFriendshipFound(Friend existing) {
+                if (existing == null) {
+                    Friend newFriend = new Friend(currentUserId, targetUserId, currentUserId);
+                    firestore.collection("friends")
+                            .document(Friend.pairId(currentUserId, targetUserId))
+                            .set(newFriend)
+                            .addOnSuccessListener(aVoid -> {
+                                Toast.makeText(FriendsListActivity.this, "Friend request sent!", Toast.LENGTH_SHORT).show();
+                            })
+                            .addOnFailureListener(e -> {
+                                Toast.makeText(FriendsListActivity.this, "Failed to send request", Toast.LENGTH_SHORT).show();
+                            });
+                } else {
+                    Toast.makeText(FriendsListActivity.this, "Friendship already exists", Toast.LENGTH_SHORT).show();
+                }
+            }
 
-                    if (!alreadyExists) {
-                        Friend newFriend = new Friend(currentUserId, targetUserId, currentUserId);
-                        firestore.collection("friends")
-                                .add(newFriend)
-                                .addOnSuccessListener(documentReference -> {
-                                    Toast.makeText(this, "Friend request sent!", Toast.LENGTH_SHORT).show();
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(this, "Failed to send request", Toast.LENGTH_SHORT).show();
-                                });
-                    } else {
-                        Toast.makeText(this, "Friendship already exists", Toast.LENGTH_SHORT).show();
-                    }
-                });
+            @Override
+            public void onError(Exception e) {
+                android.util.Log.e("FriendsListActivity", "Error checking friendship", e);
+                Toast.makeText(FriendsListActivity.this, "Failed to send request", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void acceptFriendRequest(Friend friend) {
@@ -369,6 +421,8 @@ public class FriendsListActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        searchHandler.removeCallbacks(typeAheadSearch);
+        removeListListener();
         if (notificationIconHelper != null) {
             notificationIconHelper.cleanup();
         }
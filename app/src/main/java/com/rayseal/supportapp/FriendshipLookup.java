@@ -0,0 +1,53 @@
+package com.rayseal.supportapp;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+/**
+ * Point lookups for the friendship between two users.
+ * Friendships are stored under a pair-keyed document ID (see Friend.pairId), so a check
+ * is a single document read. Friendships created before pair keys existed are moved to
+ * their pair ID by the migrateFriendshipIds function.
+ * A user's friendships are listed through the participants array, so queries and listeners
+ * only see the user's own friendships.
+ */
+public class FriendshipLookup {
+    private static final String TAG = "FriendshipLookup";
+
+    private FriendshipLookup() {}
+
+    /**
+     * Accepted friendships of a user
+     */
+    public static Query acceptedFriendships(FirebaseFirestore db, String userId) {
+        return db.collection("friends")
+            .whereArrayContains("participants", userId)
+            .whereEqualTo("status", "accepted");
+    }
+
+    /**
+     * Find the friendship between two users, or null if there is none
+     */
+    public static void find(FirebaseFirestore db, String userIdA, String userIdB, OnFriendshipFoundListener listener) {
+        db.collection("friends").document(Friend.pairId(userIdA, userIdB))
+            .get()
+            .addOnSuccessListener(doc -> listener.onFriendshipFound(doc.exists() ? toFriend(doc) : null))
+            .addOnFailureListener(listener::onError);
+    }
+
+    private static Friend toFriend(DocumentSnapshot doc) {
+        Friend friend = doc.toObject(Friend.class);
+        if (friend != null) {
+            friend.friendshipId = doc.getId();
+        } else {
+            android.util.Log.w(TAG, "Friendship document could not be parsed: " + doc.getId());
+        }
+        return friend;
+    }
+
+    public interface OnFriendshipFoundListener {
+        void onFriendshipFound(Friend friend);
+        void onError(Exception e);
+    }
+}
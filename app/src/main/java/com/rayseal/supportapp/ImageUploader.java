@@ -0,0 +1,364 @@
+package com.rayseal.supportapp;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared pipeline for uploading picked images to Storage.
+ * The image is decoded at a reduced sample size, scaled to fit the spec's bounds, turned
+ * upright according to its EXIF orientation and re-encoded as JPEG. Re-encoding also drops
+ * the original EXIF block (location, camera details). Processing runs on a background thread.
+ * Specs can ask for smaller variants (thumbnails) of the same image; they are uploaded next to
+ * the full image as name_{size}.jpg and their URLs are returned keyed by size, for ImageVariants.
+ * Uploads are resumable: the upload session is remembered per destination path, so a retry
+ * after a network failure continues where the previous attempt stopped instead of starting over.
+ * Sessions are only dropped when the server rejects them. Callers pick new destination paths per
+ * upload, so a session is not picked up again after the process dies.
+ * Callbacks are delivered on the main thread.
+ */
+public class ImageUploader {
+    private static final String TAG = "ImageUploader";
+    private static final String PREFS_NAME = "image_uploads";
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Feed rows use the 480/1080 variants, the image viewer the full image
+    public static final Spec POST_IMAGE = new Spec(1600, 82, 480, 1080);
+    // List avatars use the 96/192 variants, the profile header the full image
+    public static final Spec PROFILE_PICTURE = new Spec(512, 85, 96, 192);
+    public static final Spec COVER_PHOTO = new Spec(1600, 82);
+
+    private static ImageUploader instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ImageUploader(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized ImageUploader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageUploader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Process the image at source and upload it, and any variants the spec asks for, to target
+     */
+    public void upload(Uri source, StorageReference target, Spec spec, OnImageUploadListener listener) {
+        executor.execute(() -> {
+            List<Rendition> renditions;
+            try {
+                renditions = process(source, target, spec);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to process image " + source, e);
+                mainHandler.post(() -> listener.onFailure(e));
+                return;
+            }
+            mainHandler.post(() -> uploadRenditions(renditions, 0, new LinkedHashMap<>(), listener));
+        });
+    }
+
+    /**
+     * Upload the variants one after another and the full image last, reporting overall progress
+     */
+    private void uploadRenditions(List<Rendition> renditions, int index, Map<String, String> variantUrls,
+                                  OnImageUploadListener listener) {
+        long totalBytes = 0;
+        long doneBytes = 0;
+        for (int i = 0; i < renditions.size(); i++) {
+            totalBytes += renditions.get(i).bytes;
+            if (i < index) {
+                doneBytes += renditions.get(i).bytes;
+            }
+        }
+        Rendition rendition = renditions.get(index);
+        final long total = totalBytes;
+        final long done = doneBytes;
+
+        startUpload(rendition.file, rendition.target, 1, new OnImageUploadListener() {
+            @Override
+            public void onProgress(int percent) {
+                if (total > 0) {
+                    listener.onProgress((int) ((done + rendition.bytes * percent / 100) * 100 / total));
+                }
+            }
+
+            @Override
+            public void onSuccess(String downloadUrl, Map<String, String> ignored) {
+                if (rendition.size == 0) {
+                    listener.onSuccess(downloadUrl, variantUrls);
+                    return;
+                }
+                variantUrls.put(String.valueOf(rendition.size), downloadUrl);
+                uploadRenditions(renditions, index + 1, variantUrls, listener);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (int i = index + 1; i < renditions.size(); i++) {
+                    renditions.get(i).file.delete();
+                }
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    private void startUpload(File file, StorageReference target, int attempt, OnImageUploadListener listener) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+            .setContentType("image/jpeg")
+            .build();
+        String sessionKey = target.getPath();
+        String session = prefs.getString(sessionKey, null);
+        Uri fileUri = Uri.fromFile(file);
+
+        UploadTask task = session != null
+            ? target.putFile(fileUri, metadata, Uri.parse(session))
+            : target.putFile(fileUri, metadata);
+
+        task.addOnProgressListener(snapshot -> {
+                Uri sessionUri = snapshot.getUploadSessionUri();
+                if (sessionUri != null && !sessionUri.toString().equals(prefs.getString(sessionKey, null))) {
+                    prefs.edit().putString(sessionKey, sessionUri.toString()).apply();
+                }
+                long total = snapshot.getTotalByteCount();
+                if (total > 0) {
+                    listener.onProgress((int) (100 * snapshot.getBytesTransferred() / total));
+                }
+            })
+            .addOnSuccessListener(snapshot -> target.getDownloadUrl()
+                .addOnSuccessListener(uri -> {
+                    finish(file, sessionKey);
+                    listener.onSuccess(uri.toString(), null);
+                })
+                .addOnFailureListener(e -> {
+                    finish(file, sessionKey);
+                    listener.onFailure(e);
+                }))
+            .addOnFailureListener(e -> {
+                if (session != null && isSessionRejected(e)) {
+                    // The session expired or is invalid; the next attempt starts a new one
+                    prefs.edit().remove(sessionKey).apply();
+                }
+                if (attempt < MAX_ATTEMPTS) {
+                    Log.w(TAG, "Upload attempt " + attempt + " to " + sessionKey + " failed, retrying", e);
+                    long delay = 1000L << (attempt - 1);
+                    mainHandler.postDelayed(() -> startUpload(file, target, attempt + 1, listener), delay);
+                } else {
+                    Log.e(TAG, "Upload to " + sessionKey + " failed", e);
+                    finish(file, sessionKey);
+                    listener.onFailure(e);
+                }
+            });
+    }
+
+    /**
+     * Whether the server refused the upload session itself, rather than the attempt failing in transit.
+     * Timeouts (408) and rate limiting (429) keep the session.
+     */
+    private static boolean isSessionRejected(Exception e) {
+        if (!(e instanceof StorageException)) {
+            return false;
+        }
+        int code = ((StorageException) e).getHttpResultCode();
+        return code >= 400 && code < 500 && code != 408 && code != 429;
+    }
+
+    private void finish(File file, String sessionKey) {
+        prefs.edit().remove(sessionKey).apply();
+        if (!file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    /**
+     * Decode, scale, rotate and re-encode the image and its variants into cache files.
+     * Variants come first, smallest first; the full image (size 0) is last.
+     */
+    private List<Rendition> process(Uri source, StorageReference target, Spec spec) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+
+        // Read the dimensions only, to pick a sample size
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + source);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, spec.maxDimension);
+        Bitmap bitmap;
+        try (InputStream in = open(resolver, source)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("Failed to decode " + source);
+        }
+
+        Matrix matrix = new Matrix();
+        float scale = Math.min(1f, (float) spec.maxDimension / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotationDegrees(resolver, source));
+        Bitmap output = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (output != bitmap) {
+            bitmap.recycle();
+        }
+
+        List<Rendition> renditions = new ArrayList<>();
+        try {
+            int longSide = Math.max(output.getWidth(), output.getHeight());
+            for (int size : spec.variantSizes) {
+                if (size >= longSide) {
+                    continue; // The full image is already this small
+                }
+                float variantScale = (float) size / longSide;
+                Bitmap variant = Bitmap.createScaledBitmap(output,
+                    Math.max(1, Math.round(output.getWidth() * variantScale)),
+                    Math.max(1, Math.round(output.getHeight() * variantScale)), true);
+                try {
+                    renditions.add(new Rendition(size, variantRef(target, size),
+                        encode(variant, target, "_" + size, spec.quality)));
+                } finally {
+                    variant.recycle();
+                }
+            }
+            renditions.add(new Rendition(0, target, encode(output, target, "", spec.quality)));
+        } finally {
+            output.recycle();
+        }
+        return renditions;
+    }
+
+    private File encode(Bitmap bitmap, StorageReference target, String suffix, int quality) throws IOException {
+        File file = new File(context.getCacheDir(),
+            "upload_" + Integer.toHexString(target.getPath().hashCode()) + suffix + ".jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        }
+        return file;
+    }
+
+    /**
+     * Storage location of a variant: next to the full image, with the size added to the name
+     */
+    private static StorageReference variantRef(StorageReference target, int size) {
+        String name = target.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        StorageReference parent = target.getParent() != null ? target.getParent() : target.getRoot();
+        return parent.child(base + "_" + size + ".jpg");
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri source) throws IOException {
+        InputStream in = resolver.openInputStream(source);
+        if (in == null) {
+            throw new IOException("Cannot open " + source);
+        }
+        return in;
+    }
+
+    /**
+     * Largest power of two that keeps the decoded image at least maxDimension on its long side
+     */
+    private static int sampleSize(int width, int height, int maxDimension) {
+        int longSide = Math.max(width, height);
+        int sampleSize = 1;
+        while (longSide / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int rotationDegrees(ContentResolver resolver, Uri source) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return 0; // ExifInterface can't read from a stream before API 24
+        }
+        try (InputStream in = open(resolver, source)) {
+            int orientation = new ExifInterface(in)
+                .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read EXIF orientation of " + source, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Bounds and encoder quality for one kind of image
+     */
+    public static class Spec {
+        final int maxDimension;
+        final int quality;
+        final int[] variantSizes; // Longest side of each thumbnail, in pixels
+
+        Spec(int maxDimension, int quality, int... variantSizes) {
+            this.maxDimension = maxDimension;
+            this.quality = quality;
+            this.variantSizes = variantSizes;
+        }
+    }
+
+    private static class Rendition {
+        final int size; // 0 for the full image
+        final StorageReference target;
+        final File file;
+        final long bytes; // Kept, since the file is deleted once uploaded
+
+        Rendition(int size, StorageReference target, File file) {
+            this.size = size;
+            this.target = target;
+            this.file = file;
+            this.bytes = file.length();
+        }
+    }
+
+    public interface OnImageUploadListener {
+        void onProgress(int percent);
+        /**
+         * variantUrls maps each uploaded variant's size (as a string) to its download URL
+         */
+        void onSuccess(String downloadUrl, Map<String, String> variantUrls);
+        void onFailure(Exception e);
+    }
+}
@@ -0,0 +1,68 @@
+package com.rayseal.supportapp;
+
+import android.content.Context;
+import java.util.Map;
+
+/**
+ * Picks the smallest uploaded variant of an image that is still big enough for where it is shown.
+ * Variants are stored on documents as a map from their longest side in pixels (as a string)
+ * to their download URL; see ImageUploader. Images uploaded before variants existed only
+ * have the full URL, which is returned as is.
+ */
+public class ImageVariants {
+    // Avatars in lists are at most 48dp
+    private static final int AVATAR_DP = 48;
+    // 48dp at xxhdpi, for avatar URLs copied into documents that other devices show
+    private static final int SHARED_AVATAR_PX = 144;
+
+    private ImageVariants() {}
+
+    /**
+     * URL of the smallest variant with a longest side of at least targetPx, else the full image
+     */
+    public static String pick(String fullUrl, Map<String, String> variants, int targetPx) {
+        if (variants == null || variants.isEmpty()) {
+            return fullUrl;
+        }
+        String best = null;
+        int bestSize = Integer.MAX_VALUE;
+        for (Map.Entry<String, String> variant : variants.entrySet()) {
+            int size;
+            try {
+                size = Integer.parseInt(variant.getKey());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (size >= targetPx && size < bestSize && variant.getValue() != null && !variant.getValue().isEmpty()) {
+                best = variant.getValue();
+                bestSize = size;
+            }
+        }
+        return best != null ? best : fullUrl;
+    }
+
+    /**
+     * Variant for an image shown across the full screen width
+     */
+    public static String forScreenWidth(Context context, String fullUrl, Map<String, String> variants) {
+        return pick(fullUrl, variants, context.getResources().getDisplayMetrics().widthPixels);
+    }
+
+    /**
+     * Variant of a user's profile picture for list avatars
+     */
+    public static String avatar(Context context, Profile profile) {
+        return pick(profile.profilePictureUrl, profile.profilePictureVariants, avatarPx(context));
+    }
+
+    /**
+     * Variant of a profile picture to copy into posts, comments and notifications
+     */
+    public static String avatar(Profile profile) {
+        return pick(profile.profilePictureUrl, profile.profilePictureVariants, SHARED_AVATAR_PX);
+    }
+
+    private static int avatarPx(Context context) {
+        return Math.round(AVATAR_DP * context.getResources().getDisplayMetrics().density);
+    }
+}
@@ -0,0 +1,171 @@
+package com.rayseal.supportapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Multi-pattern keyword matcher (Aho-Corasick automaton).
+ * All terms of all categories are compiled into one automaton, so a text is scanned
+ * once no matter how many terms there are. Matches only count on whole-word boundaries,
+ * so "ass" does not match inside "class". Matching is case-insensitive.
+ * Instances are immutable and safe to share between threads.
+ */
+public class KeywordMatcher {
+
+    private final Node root = new Node();
+    private final int termCount;
+
+    /**
+     * Compile a matcher from category -> terms
+     */
+    public KeywordMatcher(Map<String, ? extends Collection<String>> lexicon) {
+        int count = 0;
+        for (Map.Entry<String, ? extends Collection<String>> entry : lexicon.entrySet()) {
+            for (String word : entry.getValue()) {
+                if (addTerm(entry.getKey(), word)) {
+                    count++;
+                }
+            }
+        }
+        this.termCount = count;
+        buildFailureLinks();
+    }
+
+    /**
+     * Scan the text once and return category -> matched terms, in order of first appearance
+     */
+    public Map<String, Set<String>> findAll(String text) {
+        Map<String, Set<String>> matches = new LinkedHashMap<>();
+        if (text == null || text.isEmpty() || termCount == 0) {
+            return matches;
+        }
+
+        Node node = root;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            while (node != root && !node.next.containsKey(c)) {
+                node = node.fail;
+            }
+            Node next = node.next.get(c);
+            node = next != null ? next : root;
+
+            for (Term term : node.outputs) {
+                int start = i - term.length + 1;
+                boolean startsWord = start == 0 || !isWordChar(text.charAt(start - 1));
+                boolean endsWord = i + 1 == length || !isWordChar(text.charAt(i + 1));
+                if (startsWord && endsWord) {
+                    Set<String> words = matches.get(term.category);
+                    if (words == null) {
+                        words = new LinkedHashSet<>();
+                        matches.put(term.category, words);
+                    }
+                    words.add(term.word);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    private boolean addTerm(String category, String word) {
+        if (word == null) {
+            return false;
+        }
+        String term = normalize(word);
+        if (term.isEmpty()) {
+            return false;
+        }
+
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            Node child = node.next.get(c);
+            if (child == null) {
+                child = new Node();
+                node.next.put(c, child);
+            }
+            node = child;
+        }
+        for (Term existing : node.outputs) {
+            if (existing.category.equals(category)) {
+                return false; // Duplicate term in the same category
+            }
+        }
+        node.outputs.add(new Term(term, category));
+        return true;
+    }
+
+    /**
+     * Breadth-first pass that links every node to its longest proper suffix in the trie
+     * and merges the suffix's outputs, so matching never has to walk the failure chain for output
+     */
+    private void buildFailureLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            for (Map.Entry<Character, Node> entry : node.next.entrySet()) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(c);
+                child.fail = target != null && target != child ? target : root;
+                child.outputs.addAll(child.fail.outputs);
+
+                queue.add(child);
+            }
+        }
+    }
+
+    private static String normalize(String word) {
+        String trimmed = word.trim();
+        StringBuilder builder = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            builder.append(Character.toLowerCase(trimmed.charAt(i)));
+        }
+        return builder.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        final List<Term> outputs = new ArrayList<>(1);
+        Node fail;
+    }
+
+    private static class Term {
+        final String word;
+        final String category;
+        final int length;
+
+        Term(String word, String category) {
+            this.word = word;
+            this.category = category;
+            this.length = word.length();
+        }
+    }
+}
@@ -37,6 +37,14 @@ public class ModerationUtils {
         // Add more harassment terms
     ));
     
+    private static final String CATEGORY_PROFANITY = "profanity";
+    private static final String CATEGORY_HATE_SPEECH = "hate_speech";
+    private static final String CATEGORY_HARASSMENT = "harassment";
+    
+    // Compiled from the keyword lists above, replaced when lists are loaded from Firestore
+    private static volatile KeywordMatcher keywordMatcher = buildKeywordMatcher(
+        PROFANITY_WORDS, HATE_SPEECH_WORDS, HARASSMENT_WORDS);
+    
     // Patterns for more complex detection
     private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{3}[-.]?\\d{3}[-.]?\\d{4}\\b");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
@@ -53,23 +61,9 @@ public class ModerationUtils {
             return;
         }
         
-        FirebaseFirestore.getInstance()
-            .collection("profiles")
-            .document(currentUserId)
-            .get()
-            .addOnSuccessListener(doc -> {
-                if (doc.exists()) {
-                    Profile profile = doc.toObject(Profile.class);
-                    boolean isAdmin = profile != null && profile.isAdmin;
-                    listener.onAdminCheck(isAdmin);
-                } else {
-                    listener.onAdminCheck(false);
-                }
-            })
-            .addOnFailureListener(e -> {
-                android.util.Log.e(TAG, "Error checking admin status", e);
-                listener.onAdminCheck(false);
-            });
+        // Answered from the cached profile; only the first call after sign-in waits for a read
+        CurrentUserProfileCache.getInstance().getProfile(profile ->
+            listener.onAdminCheck(profile != null && profile.isAdmin));
     }
     
     /**
@@ -103,32 +97,22 @@ public class ModerationUtils {
             return new ContentAnalysis(false, "", new String[0]);
         }
         
-        String lowerContent = content.toLowerCase();
         Set<String> flaggedWords = new HashSet<>();
         String flagReason = "";
         
-        // Check for profanity
-        for (String word : PROFANITY_WORDS) {
-            if (lowerContent.contains(word)) {
-                flaggedWords.add(word);
-                flagReason = "profanity";
-            }
+        // Single scan over the text for every category
+        Map<String, Set<String>> matches = keywordMatcher.findAll(content);
+        for (Set<String> words : matches.values()) {
+            flaggedWords.addAll(words);
         }
         
-        // Check for hate speech
-        for (String word : HATE_SPEECH_WORDS) {
-            if (lowerContent.contains(word)) {
-                flaggedWords.add(word);
-                flagReason = "hate_speech";
-            }
-        }
-        
-        // Check for harassment
-        for (String word : HARASSMENT_WORDS) {
-            if (lowerContent.contains(word)) {
-                flaggedWords.add(word);
-                if (flagReason.isEmpty()) flagReason = "harassment";
-            }
+        // Hate speech takes priority over profanity, harassment only applies if nothing else matched
+        if (matches.containsKey(CATEGORY_HATE_SPEECH)) {
+            flagReason = "hate_speech";
+        } else if (matches.containsKey(CATEGORY_PROFANITY)) {
+            flagReason = "profanity";
+        } else if (matches.containsKey(CATEGORY_HARASSMENT)) {
+            flagReason = "harassment";
         }
         
         // Check for personal information sharing
@@ -143,6 +127,56 @@ public class ModerationUtils {
         return new ContentAnalysis(shouldFlag, flagReason, flaggedArray);
     }
     
+    /**
+     * Load additional keyword lists from moderation_config/keywords and recompile the matcher.
+     * The document holds string arrays named "profanity", "hate_speech" and "harassment"
+     * that are merged with the built-in lists.
+     */
+    public static void loadKeywordLists() {
+        FirebaseFirestore.getInstance()
+            .collection("moderation_config")
+            .document("keywords")
+            .get()
+            .addOnSuccessListener(doc -> {
+                if (!doc.exists()) {
+                    android.util.Log.d(TAG, "No remote keyword lists, using built-in lists");
+                    return;
+                }
+                
+                Set<String> profanity = new HashSet<>(PROFANITY_WORDS);
+                Set<String> hateSpeech = new HashSet<>(HATE_SPEECH_WORDS);
+                Set<String> harassment = new HashSet<>(HARASSMENT_WORDS);
+                addStrings(profanity, doc.get(CATEGORY_PROFANITY));
+                addStrings(hateSpeech, doc.get(CATEGORY_HATE_SPEECH));
+                addStrings(harassment, doc.get(CATEGORY_HARASSMENT));
+                
+                keywordMatcher = buildKeywordMatcher(profanity, hateSpeech, harassment);
+                android.util.Log.d(TAG, "Keyword matcher rebuilt with " + keywordMatcher.getTermCount() + " terms");
+            })
+            .addOnFailureListener(e -> {
+                android.util.Log.e(TAG, "Error loading keyword lists", e);
+            });
+    }
+    
+    private static KeywordMatcher buildKeywordMatcher(Set<String> profanity, Set<String> hateSpeech,
+                                                      Set<String> harassment) {
+        Map<String, Set<String>> lexicon = new HashMap<>();
+        lexicon.put(CATEGORY_PROFANITY, profanity);
+        lexicon.put(CATEGORY_HATE_SPEECH, hateSpeech);
+        lexicon.put(CATEGORY_HARASSMENT, harassment);
+        return new KeywordMatcher(lexicon);
+    }
+    
+    private static void addStrings(Set<String> target, Object value) {
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof String) {
+                    target.add((String) item);
+                }
+            }
+        }
+    }
+    
     /**
      * Create a report for inappropriate content or user
      */
@@ -355,24 +389,8 @@ public class ModerationUtils {
             return;
         }
         
-        FirebaseFirestore.getInstance()
-            .collection("profiles")
-            .document(currentUserId)
-            .get()
-            .addOnSuccessListener(doc -> {
-                if (doc.exists()) {
-                    Profile profile = doc.toObject(Profile.class);
-                    String userName = (profile != null && profile.displayName != null && !profile.displayName.isEmpty()) 
-                        ? profile.displayName : "Anonymous";
-                    listener.onUserName(userName);
-                } else {
-                    listener.onUserName("Anonymous");
-                }
-            })
-            .addOnFailureListener(e -> {
-                android.util.Log.e(TAG, "Error getting user name", e);
-                listener.onUserName("Anonymous");
-            });
+        CurrentUserProfileCache cache = CurrentUserProfileCache.getInstance();
+        cache.getProfile(profile -> listener.onUserName(cache.getDisplayName()));
     }
 
     /**
@@ -14,7 +14,7 @@ public class Notification {
     public String relatedPostId; // for post-related notifications
     public String relatedCommentId; // for comment-related notifications
     public Timestamp timestamp;
-    public boolean isRead;
+    public boolean isRead; // always written; unread counts query isRead == false
     public String actionData; // JSON string for additional action data
 
     public Notification() {
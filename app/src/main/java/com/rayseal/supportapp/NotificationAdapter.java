@@ -110,18 +110,6 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
         }
     }
 
-    public void markAllAsRead() {
-        for (int i = 0; i < notifications.size(); i++) {
-            Notification notification = notifications.get(i);
-            if (!notification.isRead && notification.notificationId != null) {
-                firestore.collection("notifications").document(notification.notificationId)
-                    .update("isRead", true);
-                notification.isRead = true;
-            }
-        }
-        notifyDataSetChanged();
-    }
-
     static class NotificationViewHolder extends RecyclerView.ViewHolder {
         TextView title, message, time;
         ImageView profilePicture;
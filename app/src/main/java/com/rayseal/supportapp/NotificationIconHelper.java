@@ -5,9 +5,9 @@ import android.content.Intent;
 import android.view.View;
 import android.widget.TextView;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
 
 public class NotificationIconHelper {
     private final Context context;
@@ -31,6 +31,11 @@ public class NotificationIconHelper {
         });
     }
     
+    /**
+     * Follow the user's notification_counts document, which the updateUnreadNotificationCount
+     * Cloud Function keeps in step with their unread notifications. That is one document read per
+     * change instead of one per unread notification.
+     */
     private void startListeningForUnreadNotifications() {
         if (FirebaseAuth.getInstance().getCurrentUser() == null) {
             android.util.Log.w("NotificationIconHelper", "No current user, cannot listen for notifications");
@@ -41,26 +46,39 @@ public class NotificationIconHelper {
         android.util.Log.d("NotificationIconHelper", "Starting notification listener for user: " + currentUserId);
         
         unreadListener = FirebaseFirestore.getInstance()
-            .collection("notifications")
-            .whereEqualTo("userId", currentUserId)
-            .whereEqualTo("isRead", false)
-            .addSnapshotListener((querySnapshot, error) -> {
+            .collection("notification_counts")
+            .document(currentUserId)
+            .addSnapshotListener((snapshot, error) -> {
                 if (error != null) {
                     android.util.Log.e("NotificationIconHelper", "Error listening for notifications", error);
                     return;
                 }
                 
-                if (querySnapshot == null) {
-                    android.util.Log.w("NotificationIconHelper", "QuerySnapshot is null");
+                if (snapshot == null || !snapshot.exists()) {
+                    // Counter not created yet (no notifications since the counters were introduced)
+                    countUnreadNotifications(currentUserId);
                     return;
                 }
                 
-                int unreadCount = querySnapshot.size();
-                android.util.Log.d("NotificationIconHelper", "Found " + unreadCount + " unread notifications");
-                updateBadge(unreadCount);
+                Long unreadCount = snapshot.getLong("unreadCount");
+                updateBadge(unreadCount != null ? (int) Math.max(0, unreadCount) : 0);
             });
     }
     
+    /**
+     * One-off server-side count, used until the user's counter document exists
+     */
+    private void countUnreadNotifications(String currentUserId) {
+        FirebaseFirestore.getInstance()
+            .collection("notifications")
+            .whereEqualTo("userId", currentUserId)
+            .whereEqualTo("isRead", false)
+            .count()
+            .get(AggregateSource.SERVER)
+            .addOnSuccessListener(result -> updateBadge((int) result.getCount()))
+            .addOnFailureListener(e -> android.util.Log.e("NotificationIconHelper", "Error counting notifications", e));
+    }
+    
     private void updateBadge(int count) {
         android.util.Log.d("NotificationIconHelper", "Updating badge with count: " + count);
         if (badgeText == null) {
@@ -0,0 +1,85 @@
+package com.rayseal.supportapp;
+
+import android.util.Log;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+/**
+ * Marks all of a user's unread notifications as read in WriteBatch chunks.
+ * Works from the server's list of unread notifications rather than the ones on screen, so
+ * nothing is missed. Chunks are committed one after another; each chunk is re-queried after
+ * the previous one commits, since committed notifications drop out of the unread query.
+ * Stops at the first failed chunk and reports how many were marked.
+ */
+public class NotificationReadMarker {
+    private static final String TAG = "NotificationReadMarker";
+    private static final int MAX_BATCH_WRITES = 500; // Firestore batch limit
+
+    private NotificationReadMarker() {}
+
+    public static void markAllRead(FirebaseFirestore db, String userId, OnMarkReadListener listener) {
+        Query unread = db.collection("notifications")
+            .whereEqualTo("userId", userId)
+            .whereEqualTo("isRead", false);
+
+        unread.count().get(AggregateSource.SERVER)
+            .addOnSuccessListener(result -> {
+                int total = (int) result.getCount();
+                if (total == 0) {
+                    listener.onComplete(0);
+                    return;
+                }
+                listener.onProgress(0, total);
+                markNextChunk(db, unread, 0, total, listener);
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error counting unread notifications", e);
+                listener.onFailure(0, e);
+            });
+    }
+
+    private static void markNextChunk(FirebaseFirestore db, Query unread, int marked, int total,
+                                      OnMarkReadListener listener) {
+        unread.limit(MAX_BATCH_WRITES).get()
+            .addOnSuccessListener(querySnapshot -> {
+                if (querySnapshot.isEmpty()) {
+                    listener.onComplete(marked);
+                    return;
+                }
+
+                WriteBatch batch = db.batch();
+                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                    batch.update(doc.getReference(), "isRead", true);
+                }
+                int chunkSize = querySnapshot.size();
+                batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        int nowMarked = marked + chunkSize;
+                        // New notifications may have arrived since counting
+                        listener.onProgress(nowMarked, Math.max(total, nowMarked));
+                        if (chunkSize < MAX_BATCH_WRITES) {
+                            listener.onComplete(nowMarked);
+                        } else {
+                            markNextChunk(db, unread, nowMarked, total, listener);
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error marking " + chunkSize + " notifications as read", e);
+                        listener.onFailure(marked, e);
+                    });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading unread notifications", e);
+                listener.onFailure(marked, e);
+            });
+    }
+
+    public interface OnMarkReadListener {
+        void onProgress(int marked, int total);
+        void onComplete(int marked);
+        void onFailure(int marked, Exception e);
+    }
+}
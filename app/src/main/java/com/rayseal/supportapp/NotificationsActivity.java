@@ -5,6 +5,7 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -25,6 +26,7 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
     private List<Notification> notifications = new ArrayList<>();
     private FirebaseFirestore db;
     private String currentUserId;
+    private boolean markingAllRead = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -94,7 +96,46 @@ public class NotificationsActivity extends AppCompatActivity implements Notifica
     }
 
     private void markAllAsRead() {
-        notificationAdapter.markAllAsRead();
+        if (markingAllRead) {
+            return;
+        }
+        markingAllRead = true;
+        markAllReadButton.setEnabled(false);
+        markAllReadButton.setAlpha(0.5f);
+        // Rows turn read through the notifications listener as each chunk is written,
+        // and turn back if its batch fails, so the list never shows uncommitted state
+
+        NotificationReadMarker.markAllRead(db, currentUserId, new NotificationReadMarker.OnMarkReadListener() {
+            @Override
+            public void onProgress(int marked, int total) {
+                android.util.Log.d("NotificationsActivity", "Marked " + marked + " of " + total + " notifications as read");
+                if (marked == 0 && total > 100) {
+                    Toast.makeText(NotificationsActivity.this, "Marking " + total + " notifications as read...", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onComplete(int marked) {
+                finishMarkingAllRead();
+            }
+
+            @Override
+            public void onFailure(int marked, Exception e) {
+                finishMarkingAllRead();
+                Toast.makeText(NotificationsActivity.this,
+                    "Couldn't mark all notifications as read (" + marked + " done). Please try again.",
+                    Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void finishMarkingAllRead() {
+        markingAllRead = false;
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        markAllReadButton.setEnabled(true);
+        markAllReadButton.setAlpha(1.0f);
     }
 
     @Override
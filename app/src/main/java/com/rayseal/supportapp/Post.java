@@ -10,6 +10,7 @@ public class Post {
   public String content;
   public List<String> categories;
   public String imageUrl;
+  public Map<String, String> imageVariants; // variant size in px -> URL, see ImageVariants
   public String userId;
   public String authorName;
   public String authorProfilePicture;
@@ -13,9 +13,12 @@ import android.widget.Button;
 import android.widget.LinearLayout;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.List;
+import java.util.Objects;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
@@ -23,26 +26,120 @@ import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import androidx.annotation.NonNull;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder> {
-  private List<Post> posts;
+  // Payloads for partial rebinds
+  static final String PAYLOAD_REACTIONS = "reactions";
+  static final String PAYLOAD_COMMENT_COUNT = "commentCount";
+
+  private List<Post> posts; // Owned by the activity, shown through the differ
+  private final AsyncListDiffer<Post> differ = new AsyncListDiffer<>(this, new PostDiffCallback());
   private FirebaseFirestore firestore;
   private String currentUserId;
+  private final ReactionWriteCoalescer reactionWriter;
+  private RecyclerView attachedRecyclerView;
 
   public PostAdapter(List<Post> posts) {
     this.posts = posts;
     this.firestore = FirebaseFirestore.getInstance();
     this.currentUserId = FirebaseAuth.getInstance().getCurrentUser() != null ? 
         FirebaseAuth.getInstance().getCurrentUser().getUid() : "";
+    this.reactionWriter = new ReactionWriteCoalescer(firestore, currentUserId,
+        new ReactionWriteCoalescer.OnReactionCommitListener() {
+          @Override
+          public void onReactionAdded(Post post, String reactionType) {
+            // Create notification for reaction (only if not reacting to own post)
+            if (post.userId != null && !post.userId.equals(currentUserId)) {
+              createReactionNotification(post, reactionType);
+            }
+          }
+
+          @Override
+          public void onReactionReverted(Post post, Exception e) {
+            notifyPostChanged(post, PAYLOAD_REACTIONS);
+            if (attachedRecyclerView != null) {
+              Toast.makeText(attachedRecyclerView.getContext(), "Failed to save reaction", Toast.LENGTH_SHORT).show();
+            }
+          }
+        });
+    setHasStableIds(true);
+    notifyPostsChanged();
+  }
+
+  /**
+   * Diff the posts list against what is on screen in the background and apply only the changes
+   */
+  public void notifyPostsChanged() {
+    notifyPostsChanged(null);
+  }
+
+  public void notifyPostsChanged(Runnable onCommitted) {
+    differ.submitList(new ArrayList<>(posts), onCommitted);
+  }
+
+  private List<Post> getCurrentPosts() {
+    return differ.getCurrentList();
+  }
+
+  /**
+   * Rebind part of a post's row after it was changed in place
+   */
+  private void notifyPostChanged(Post post, String payload) {
+    int index = getCurrentPosts().indexOf(post);
+    if (index >= 0) {
+      notifyItemChanged(index, payload);
+    }
+  }
+
+  // Rebind rows when the user's admin role arrives or changes, so delete buttons appear
+  private final CurrentUserProfileCache.OnProfileChangedListener profileChangedListener =
+      (profile, adminStatusChanged) -> {
+        if (adminStatusChanged) {
+          notifyItemRangeChanged(0, getItemCount());
+        }
+      };
+
+  @Override
+  public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+    super.onAttachedToRecyclerView(recyclerView);
+    attachedRecyclerView = recyclerView;
+    CurrentUserProfileCache.getInstance().addOnProfileChangedListener(profileChangedListener);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+    super.onDetachedFromRecyclerView(recyclerView);
+    attachedRecyclerView = null;
+    // Don't leave reaction taps waiting on the debounce once the feed is gone
+    reactionWriter.flush();
+    CurrentUserProfileCache.getInstance().removeOnProfileChangedListener(profileChangedListener);
+  }
+
+  /**
+   * A 64-bit FNV-1a hash of the post ID, so the ID is stable without keeping a map of every
+   * post ever shown. Collisions between a feed's posts are vanishingly unlikely at 64 bits.
+   */
+  @Override
+  public long getItemId(int position) {
+    String postId = getCurrentPosts().get(position).postId;
+    if (postId == null) {
+      return RecyclerView.NO_ID;
+    }
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < postId.length(); i++) {
+      hash ^= postId.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash == RecyclerView.NO_ID ? 0 : hash;
   }
 
   @NonNull
@@ -53,10 +150,28 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     return new PostViewHolder(v);
   }
 
+  @Override
+  public void onBindViewHolder(@NonNull PostViewHolder holder, int position, @NonNull List<Object> payloads) {
+    if (payloads.isEmpty()) {
+      onBindViewHolder(holder, position);
+      return;
+    }
+    
+    // Partial rebind - leave text and images that did not change alone
+    Post post = getCurrentPosts().get(position);
+    for (Object payload : payloads) {
+      if (PAYLOAD_REACTIONS.equals(payload)) {
+        setupReactions(holder, post);
+      } else if (PAYLOAD_COMMENT_COUNT.equals(payload)) {
+        bindCommentCount(holder, post);
+      }
+    }
+  }
+
   @Override
   public void onBindViewHolder(@NonNull PostViewHolder holder, int position) {
     try {
-      Post post = posts.get(position);
+      Post post = getCurrentPosts().get(position);
       Context context = holder.itemView.getContext();
       
       // Safe string operations with null checks
@@ -103,8 +218,9 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
       if (post.imageUrl != null && !post.imageUrl.isEmpty()) {
         holder.postImageView.setVisibility(View.VISIBLE);
         try {
+            // Smallest variant that fills the row; posts from before variants have only the full image
             Glide.with(context)
-                 .load(post.imageUrl)
+                 .load(ImageVariants.forScreenWidth(context, post.imageUrl, post.imageVariants))
                  .placeholder(android.R.drawable.ic_menu_gallery)
                  .error(android.R.drawable.ic_delete)
                  .into(holder.postImageView);
@@ -115,7 +231,9 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                     if (post.imageUrl != null && !post.imageUrl.isEmpty()) {
                         android.util.Log.d("PostAdapter", "Opening image viewer with URL: " + post.imageUrl);
                         Intent intent = new Intent(context, ImageViewerActivity.class);
-                        intent.putExtra("imageUrl", post.imageUrl);
+                        android.util.DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+                        intent.putExtra("imageUrl", ImageVariants.pick(post.imageUrl, post.imageVariants,
+                            Math.max(metrics.widthPixels, metrics.heightPixels)));
                         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
                         context.startActivity(intent);
                     } else {
@@ -138,18 +256,17 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
       }
       
       // Set up reactions safely
-      setupReactions(holder, post, position);
+      setupReactions(holder, post);
       
       // Comments section safely
-      int commentCount = post.commentCount;
-      holder.commentCountText.setText(commentCount == 1 ? "1 comment" : commentCount + " comments");
-      holder.commentsSection.setOnClickListener(v -> showCommentsDialog(context, post, position));
+      bindCommentCount(holder, post);
+      holder.commentsSection.setOnClickListener(v -> showCommentsDialog(context, post));
       
       // Report button click listener
       holder.reportButton.setOnClickListener(v -> showReportDialog(context, post));
       
       // Delete button - show for post owner or admins
-      setupDeleteButton(holder, post, context, position);
+      setupDeleteButton(holder, post, context);
       
     } catch (Exception e) {
         android.util.Log.e("PostAdapter", "Error binding post at position " + position, e);
@@ -162,7 +279,12 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     }
   }
 
-  private void setupReactions(PostViewHolder holder, Post post, int position) {
+  private void bindCommentCount(PostViewHolder holder, Post post) {
+    int commentCount = post.commentCount;
+    holder.commentCountText.setText(commentCount == 1 ? "1 comment" : commentCount + " comments");
+  }
+
+  private void setupReactions(PostViewHolder holder, Post post) {
     try {
         // Reaction types and their messages
         Map<String, String> reactionTypes = new HashMap<>();
@@ -173,11 +295,11 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         reactionTypes.put("support", "Sending support");
         
         // Set reaction counts and click listeners safely
-        setupReactionButton(holder.reactionYouGotThis, post, "youGotThis", "You got this", position);
-        setupReactionButton(holder.reactionNotAlone, post, "notAlone", "You're not alone", position);
-        setupReactionButton(holder.reactionWithYou, post, "withYou", "Right here with you", position);
-        setupReactionButton(holder.reactionStrong, post, "strong", "You are strong", position);
-        setupReactionButton(holder.reactionSupport, post, "support", "Sending support", position);
+        setupReactionButton(holder.reactionYouGotThis, post, "youGotThis", "You got this");
+        setupReactionButton(holder.reactionNotAlone, post, "notAlone", "You're not alone");
+        setupReactionButton(holder.reactionWithYou, post, "withYou", "Right here with you");
+        setupReactionButton(holder.reactionStrong, post, "strong", "You are strong");
+        setupReactionButton(holder.reactionSupport, post, "support", "Sending support");
     } catch (Exception e) {
         android.util.Log.e("PostAdapter", "Error setting up reactions", e);
         // Set default text for all reaction buttons
@@ -193,7 +315,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     }
   }
   
-  private void setupReactionButton(TextView reactionView, Post post, String reactionType, String message, int position) {
+  private void setupReactionButton(TextView reactionView, Post post, String reactionType, String message) {
     try {
         if (reactionView == null || post == null) return;
         
@@ -225,7 +347,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         
         reactionView.setOnClickListener(v -> {
             if (post.postId != null) {
-                toggleReaction(post, reactionType, message, position);
+                toggleReaction(post, reactionType, message);
             }
         });
     } catch (Exception e) {
@@ -248,123 +370,15 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     }
   }
   
-  private void toggleReaction(Post post, String reactionType, String message, int position) {
+  private void toggleReaction(Post post, String reactionType, String message) {
     if (post.postId == null || currentUserId.isEmpty()) return;
     
-    // Check current reaction status for this specific reaction type
-    boolean hasReacted = false;
-    if (post.userReactions != null && post.userReactions.containsKey(reactionType) && 
-        post.userReactions.get(reactionType) != null) {
-        hasReacted = post.userReactions.get(reactionType).contains(currentUserId);
-    }
-    
-    // Check if user has any existing reactions (for single reaction limit)
-    String existingReactionType = null;
-    if (post.userReactions != null) {
-        for (Map.Entry<String, List<String>> entry : post.userReactions.entrySet()) {
-            if (entry.getValue() != null && entry.getValue().contains(currentUserId)) {
-                existingReactionType = entry.getKey();
-                break;
-            }
-        }
-    }
-    
-    if (hasReacted) {
-        // Remove current reaction
-        String reactionPath = "userReactions." + reactionType;
-        String countPath = "reactions." + reactionType;
-        
-        firestore.collection("posts").document(post.postId)
-            .update(reactionPath, FieldValue.arrayRemove(currentUserId),
-                   countPath, FieldValue.increment(-1))
-            .addOnSuccessListener(aVoid -> {
-                // Update local data
-                if (post.userReactions.get(reactionType) != null) {
-                    post.userReactions.get(reactionType).remove(currentUserId);
-                }
-                int currentCount = post.reactions.get(reactionType);
-                post.reactions.put(reactionType, Math.max(0, currentCount - 1));
-                notifyItemChanged(position);
-            });
-    } else {
-        // Add new reaction (remove existing one first if it exists)
-        if (existingReactionType != null && !existingReactionType.equals(reactionType)) {
-            // Remove existing reaction first
-            final String finalExistingReactionType = existingReactionType;
-            String oldReactionPath = "userReactions." + finalExistingReactionType;
-            String oldCountPath = "reactions." + finalExistingReactionType;
-            String newReactionPath = "userReactions." + reactionType;
-            String newCountPath = "reactions." + reactionType;
-            
-            // Use batch write to ensure atomicity
-            WriteBatch batch = firestore.batch();
-            DocumentReference postRef = firestore.collection("posts").document(post.postId);
-            
-            // Remove old reaction
-            batch.update(postRef, oldReactionPath, FieldValue.arrayRemove(currentUserId));
-            batch.update(postRef, oldCountPath, FieldValue.increment(-1));
-            
-            // Add new reaction
-            batch.update(postRef, newReactionPath, FieldValue.arrayUnion(currentUserId));
-            batch.update(postRef, newCountPath, FieldValue.increment(1));
-            
-            batch.commit().addOnSuccessListener(aVoid -> {
-                // Update local data
-                // Remove from old reaction
-                if (post.userReactions.get(finalExistingReactionType) != null) {
-                    post.userReactions.get(finalExistingReactionType).remove(currentUserId);
-                }
-                int oldCount = post.reactions.containsKey(finalExistingReactionType) ? post.reactions.get(finalExistingReactionType) : 0;
-                post.reactions.put(finalExistingReactionType, Math.max(0, oldCount - 1));
-                
-                // Add to new reaction
-                if (post.userReactions == null) post.userReactions = new HashMap<>();
-                if (post.userReactions.get(reactionType) == null) {
-                    post.userReactions.put(reactionType, new ArrayList<>());
-                }
-                post.userReactions.get(reactionType).add(currentUserId);
-                
-                if (post.reactions == null) post.reactions = new HashMap<>();
-                int currentCount = post.reactions.containsKey(reactionType) ? post.reactions.get(reactionType) : 0;
-                post.reactions.put(reactionType, currentCount + 1);
-                notifyItemChanged(position);
-                
-                // Create notification for reaction (only if not reacting to own post)
-                if (!post.userId.equals(currentUserId)) {
-                    createReactionNotification(post, reactionType);
-                }
-            });
-        } else {
-            // No existing reaction, just add new one
-            String reactionPath = "userReactions." + reactionType;
-            String countPath = "reactions." + reactionType;
-            
-            firestore.collection("posts").document(post.postId)
-                .update(reactionPath, FieldValue.arrayUnion(currentUserId),
-                       countPath, FieldValue.increment(1))
-                .addOnSuccessListener(aVoid -> {
-                    // Update local data
-                    if (post.userReactions == null) post.userReactions = new HashMap<>();
-                    if (post.userReactions.get(reactionType) == null) {
-                        post.userReactions.put(reactionType, new ArrayList<>());
-                    }
-                    post.userReactions.get(reactionType).add(currentUserId);
-                    
-                    if (post.reactions == null) post.reactions = new HashMap<>();
-                    int currentCount = post.reactions.containsKey(reactionType) ? post.reactions.get(reactionType) : 0;
-                    post.reactions.put(reactionType, currentCount + 1);
-                    notifyItemChanged(position);
-                    
-                    // Create notification for reaction (only if not reacting to own post)
-                    if (!post.userId.equals(currentUserId)) {
-                        createReactionNotification(post, reactionType);
-                    }
-                });
-        }
-    }
+    // Applied locally right away; the write is debounced and batched by the coalescer
+    reactionWriter.toggle(post, reactionType);
+    notifyPostChanged(post, PAYLOAD_REACTIONS);
   }
   
-  private void showCommentsDialog(Context context, Post post, int position) {
+  private void showCommentsDialog(Context context, Post post) {
     AlertDialog.Builder builder = new AlertDialog.Builder(context);
     View dialogView = LayoutInflater.from(context).inflate(R.layout.dialog_comments, null);
     builder.setView(dialogView);
@@ -374,55 +388,74 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     Button btnAddComment = dialogView.findViewById(R.id.btnAddComment);
     TextView noCommentsText = dialogView.findViewById(R.id.noCommentsText);
     
-    List<Comment> comments = new ArrayList<>();
+    // Comments come from the post's cached thread: newest page first, older pages on scroll up
+    CommentThread thread = CommentThread.forPost(firestore, post.postId);
+    List<Comment> comments = thread.getComments();
     CommentAdapter commentAdapter = new CommentAdapter(comments, post.postId, context);
-    commentsRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+    commentAdapter.setOnCommentDeletedListener(comment -> {
+        post.commentCount = Math.max(0, post.commentCount - 1);
+        notifyPostChanged(post, PAYLOAD_COMMENT_COUNT);
+    });
+    LinearLayoutManager commentsLayoutManager = new LinearLayoutManager(context);
+    commentsRecyclerView.setLayoutManager(commentsLayoutManager);
     commentsRecyclerView.setAdapter(commentAdapter);
     
     AlertDialog dialog = builder.create();
     
-    // Load existing comments
-    firestore.collection("comments")
-        .whereEqualTo("postId", post.postId)
-        .get()
-        .addOnSuccessListener(querySnapshot -> {
-            android.util.Log.d("PostAdapter", "Found " + querySnapshot.size() + " comments for post " + post.postId);
-            comments.clear(); // Clear existing comments first
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                try {
-                    Comment comment = doc.toObject(Comment.class);
-                    if (comment != null) {
-                        comment.commentId = doc.getId();
-                        comments.add(comment);
-                        android.util.Log.d("PostAdapter", "Added comment: " + comment.content + " by " + comment.authorName);
-                    } else {
-                        android.util.Log.w("PostAdapter", "Comment object is null for document: " + doc.getId());
-                    }
-                } catch (Exception e) {
-                    android.util.Log.e("PostAdapter", "Error parsing comment document: " + doc.getId(), e);
-                }
-            }
-            
-            // Sort comments by timestamp manually
-            comments.sort((c1, c2) -> Long.compare(c1.timestamp, c2.timestamp));
-            
+    Runnable updateEmptyState = () -> {
+        boolean empty = thread.isLoaded() && comments.isEmpty();
+        noCommentsText.setVisibility(empty ? View.VISIBLE : View.GONE);
+        commentsRecyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+    };
+    
+    thread.attach(new CommentThread.OnThreadChangedListener() {
+        @Override
+        public void onThreadLoaded() {
             commentAdapter.notifyDataSetChanged();
-            
-            // Show/hide no comments message
-            if (comments.isEmpty()) {
-                noCommentsText.setVisibility(View.VISIBLE);
-                commentsRecyclerView.setVisibility(View.GONE);
-            } else {
-                noCommentsText.setVisibility(View.GONE);
-                commentsRecyclerView.setVisibility(View.VISIBLE);
+            updateEmptyState.run();
+            if (!comments.isEmpty()) {
+                commentsRecyclerView.scrollToPosition(comments.size() - 1);
             }
-            
-            android.util.Log.d("PostAdapter", "Successfully loaded and displayed " + comments.size() + " comments");
-        })
-        .addOnFailureListener(e -> {
-            android.util.Log.e("PostAdapter", "Error loading comments", e);
+        }
+        
+        @Override
+        public void onCommentsInserted(int position, int count) {
+            // Follow new comments at the bottom if the newest one was in view
+            boolean atBottom = commentsLayoutManager.findLastVisibleItemPosition() >= comments.size() - count - 1;
+            commentAdapter.notifyItemRangeInserted(position, count);
+            updateEmptyState.run();
+            if (atBottom && position + count == comments.size()) {
+                commentsRecyclerView.scrollToPosition(comments.size() - 1);
+            }
+        }
+        
+        @Override
+        public void onCommentChanged(int position) {
+            commentAdapter.notifyItemChanged(position);
+        }
+        
+        @Override
+        public void onCommentsRemoved(int position, int count) {
+            commentAdapter.notifyItemRangeRemoved(position, count);
+            updateEmptyState.run();
+        }
+        
+        @Override
+        public void onLoadError(Exception e) {
             Toast.makeText(context, "Error loading comments: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        });
+        }
+    });
+    dialog.setOnDismissListener(d -> thread.detach());
+    
+    // Load older comments when scrolled near the top
+    commentsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (dy < 0 && thread.hasOlder() && commentsLayoutManager.findFirstVisibleItemPosition() <= 3) {
+                thread.loadOlder();
+            }
+        }
+    });
     
     // Add comment listener
     btnAddComment.setOnClickListener(v -> {
@@ -432,88 +465,30 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             return;
         }
         
-        // Get current user profile info
-        firestore.collection("profiles").document(currentUserId)
-            .get()
-            .addOnSuccessListener(doc -> {
-                final String authorName;
-                final String authorProfilePicture;
-                
-                if (doc.exists()) {
-                    Profile profile = doc.toObject(Profile.class);
-                    if (profile != null) {
-                        authorName = profile.displayName != null && !profile.displayName.isEmpty() ? 
-                            profile.displayName : "Anonymous";
-                        authorProfilePicture = profile.profilePictureUrl != null ? profile.profilePictureUrl : "";
-                    } else {
-                        authorName = "Anonymous";
-                        authorProfilePicture = "";
-                    }
-                } else {
-                    authorName = "Anonymous";
-                    authorProfilePicture = "";
-                }
-                
-                Comment newComment = new Comment(post.postId, currentUserId, authorName, 
-                    authorProfilePicture, commentText, System.currentTimeMillis());
-                
-                android.util.Log.d("PostAdapter", "Creating comment: " + commentText + " by " + authorName + " for post " + post.postId);
-                
-                firestore.collection("comments")
-                    .add(newComment)
-                    .addOnSuccessListener(documentReference -> {
-                        newComment.commentId = documentReference.getId();
-                        android.util.Log.d("PostAdapter", "Comment saved successfully with ID: " + newComment.commentId);
-                        commentAdapter.addComment(newComment);
-                        
-                        // Show/hide no comments message
-                        if (comments.isEmpty()) {
-                            noCommentsText.setVisibility(View.VISIBLE);
-                            commentsRecyclerView.setVisibility(View.GONE);
-                        } else {
-                            noCommentsText.setVisibility(View.GONE);
-                            commentsRecyclerView.setVisibility(View.VISIBLE);
-                        }
-                        
-                        // Update post comment count
-                        firestore.collection("posts").document(post.postId)
-                            .update("commentCount", FieldValue.increment(1));
-                        
-                        post.commentCount++;
-                        notifyItemChanged(position);
-                        
-                        // Create notification for comment (if not commenting on own post)
-                        if (!currentUserId.equals(post.userId)) {
-                            createCommentNotification(post, authorName);
-                        }
-                        
-                        commentEditText.setText("");
-                        commentsRecyclerView.scrollToPosition(comments.size() - 1);
-                    })
-                    .addOnFailureListener(e -> {
-                        android.util.Log.e("PostAdapter", "Failed to add comment", e);
-                        Toast.makeText(context, "Failed to add comment: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    });
-            });
+        commentEditText.setText("");
+        submitComment(context, post, thread, commentText, e -> {
+            // Give the text back so it can be retried
+            if (commentEditText.getText().length() == 0) {
+                commentEditText.setText(commentText);
+            }
+            Toast.makeText(context, "Failed to add comment: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+        commentsRecyclerView.scrollToPosition(comments.size() - 1);
     });
     
     dialog.show();
   }
 
   private void createReactionNotification(Post post, String reactionType) {
-    // Get current user's profile information
-    firestore.collection("profiles").document(currentUserId).get()
-        .addOnSuccessListener(doc -> {
+    // Sender info comes from the cached profile instead of another read
+    CurrentUserProfileCache.getInstance().getProfile(profile -> {
             String fromUserName = "Someone";
             String fromUserProfilePicture = "";
             
-            if (doc.exists()) {
-                Profile profile = doc.toObject(Profile.class);
-                if (profile != null) {
-                    fromUserName = profile.displayName != null && !profile.displayName.isEmpty() ? 
-                        profile.displayName : "Someone";
-                    fromUserProfilePicture = profile.profilePictureUrl != null ? profile.profilePictureUrl : "";
-                }
+            if (profile != null) {
+                fromUserName = profile.displayName != null && !profile.displayName.isEmpty() ? 
+                    profile.displayName : "Someone";
+                fromUserProfilePicture = profile.profilePictureUrl != null ? ImageVariants.avatar(profile) : "";
             }
             
             // Create notification
@@ -571,25 +546,72 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         });
   }
 
-  private void createCommentNotification(Post post, String commenterName) {
-    // Create notification for comment
-    Notification notification = Notification.createCommentNotification(
-        post.userId,
-        currentUserId,
-        commenterName,
-        "", // profile picture will be filled by notification creation
-        post.postId,
-        "" // commentId - we don't have it here, will be empty
-    );
-    
-    firestore.collection("notifications")
-        .add(notification)
-        .addOnSuccessListener(documentReference -> {
-            android.util.Log.d("PostAdapter", "Comment notification created successfully");
-            // Send push notification
-            sendPushNotification(post.userId, notification);
-        })
-        .addOnFailureListener(e -> android.util.Log.e("PostAdapter", "Failed to create comment notification", e));
+  /**
+   * Post a comment: the comment, the comment counter increment and the post author's
+   * notification are committed in one batch, so they succeed or fail together.
+   * The comment is shown in the thread and counted on the post straight away and both
+   * are rolled back if the batch fails.
+   */
+  private void submitComment(Context context, Post post, CommentThread thread, String commentText,
+                             OnCommentFailedListener onFailure) {
+    // Author info comes from the cached profile instead of another read
+    CurrentUserProfileCache.getInstance().getProfile(profile -> {
+        String authorName = "Anonymous";
+        String authorProfilePicture = "";
+        if (profile != null) {
+            authorName = profile.displayName != null && !profile.displayName.isEmpty() ?
+                profile.displayName : "Anonymous";
+            authorProfilePicture = profile.profilePictureUrl != null ? ImageVariants.avatar(profile) : "";
+        }
+        
+        DocumentReference commentRef = firestore.collection("comments").document();
+        Comment newComment = new Comment(post.postId, currentUserId, authorName,
+            authorProfilePicture, commentText, System.currentTimeMillis());
+        newComment.commentId = commentRef.getId();
+        
+        WriteBatch batch = firestore.batch();
+        batch.set(commentRef, newComment);
+        PostCounters.incrementCommentCount(batch, firestore, post.postId, 1);
+        
+        // Notify the post author (not when commenting on own post)
+        Notification notification = null;
+        if (post.userId != null && !currentUserId.equals(post.userId)) {
+            notification = Notification.createCommentNotification(
+                post.userId,
+                currentUserId,
+                authorName,
+                authorProfilePicture,
+                post.postId,
+                newComment.commentId
+            );
+            batch.set(firestore.collection("notifications").document(), notification);
+        }
+        
+        // Optimistic: the live listener later delivers the same comment and the thread keeps one copy
+        thread.upsert(newComment);
+        post.commentCount++;
+        notifyPostChanged(post, PAYLOAD_COMMENT_COUNT);
+        
+        final Notification sentNotification = notification;
+        batch.commit()
+            .addOnSuccessListener(aVoid -> {
+                android.util.Log.d("PostAdapter", "Comment saved with ID: " + newComment.commentId);
+                if (sentNotification != null) {
+                    sendPushNotification(post.userId, sentNotification);
+                }
+            })
+            .addOnFailureListener(e -> {
+                android.util.Log.e("PostAdapter", "Failed to add comment", e);
+                thread.remove(newComment.commentId);
+                post.commentCount = Math.max(0, post.commentCount - 1);
+                notifyPostChanged(post, PAYLOAD_COMMENT_COUNT);
+                onFailure.onCommentFailed(e);
+            });
+    });
+  }
+
+  private interface OnCommentFailedListener {
+    void onCommentFailed(Exception e);
   }
 
   // Push notification request model
@@ -619,7 +641,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
 
   @Override
   public int getItemCount() {
-    return posts.size();
+    return getCurrentPosts().size();
   }
 
   public static class PostViewHolder extends RecyclerView.ViewHolder {
@@ -723,49 +745,24 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     }
   }
   
-  private void setupDeleteButton(PostViewHolder holder, Post post, Context context, int position) {
-        // Check if current user can delete this post (owner or admin)
-        if (currentUserId != null) {
-            firestore.collection("profiles").document(currentUserId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    boolean isAdmin = false;
-                    if (documentSnapshot.exists()) {
-                        Profile profile = documentSnapshot.toObject(Profile.class);
-                        isAdmin = profile != null && profile.isAdmin;
-                    }
-                    
-                    // Show delete button if user is owner or admin
-                    boolean canDelete = currentUserId.equals(post.userId) || isAdmin;
-                    holder.deleteButton.setVisibility(canDelete ? View.VISIBLE : View.GONE);
-                    
-                    if (canDelete) {
-                        holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(context, post, position));
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Only show if user owns the post
-                    boolean ownerCanDelete = currentUserId.equals(post.userId);
-                    holder.deleteButton.setVisibility(ownerCanDelete ? View.VISIBLE : View.GONE);
-                    if (ownerCanDelete) {
-                        holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(context, post, position));
-                    }
-                });
-        } else {
-            holder.deleteButton.setVisibility(View.GONE);
-        }
+  private void setupDeleteButton(PostViewHolder holder, Post post, Context context) {
+        // Owner or admin can delete; the admin flag comes from the cached profile, not a read per bind
+        boolean canDelete = currentUserId != null && !currentUserId.isEmpty()
+            && (currentUserId.equals(post.userId) || CurrentUserProfileCache.getInstance().isAdmin());
+        holder.deleteButton.setVisibility(canDelete ? View.VISIBLE : View.GONE);
+        holder.deleteButton.setOnClickListener(canDelete ? v -> showDeleteConfirmation(context, post) : null);
     }
     
-    private void showDeleteConfirmation(Context context, Post post, int position) {
+    private void showDeleteConfirmation(Context context, Post post) {
         new AlertDialog.Builder(context)
             .setTitle("Delete Post")
             .setMessage("Are you sure you want to delete this post? This action cannot be undone.")
-            .setPositiveButton("Delete", (dialog, which) -> deletePost(context, post, position))
+            .setPositiveButton("Delete", (dialog, which) -> deletePost(context, post))
             .setNegativeButton("Cancel", null)
             .show();
     }
     
-    private void deletePost(Context context, Post post, int position) {
+    private void deletePost(Context context, Post post) {
         if (post.postId == null || post.postId.isEmpty()) {
             Toast.makeText(context, "Error: Cannot delete post", Toast.LENGTH_SHORT).show();
             return;
@@ -776,10 +773,8 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             .delete()
             .addOnSuccessListener(aVoid -> {
                 // Remove from local list and notify adapter
-                if (position >= 0 && position < posts.size()) {
-                    posts.remove(position);
-                    notifyItemRemoved(position);
-                    notifyItemRangeChanged(position, posts.size());
+                if (posts.remove(post)) {
+                    notifyPostsChanged();
                 }
                 Toast.makeText(context, "Post deleted successfully", Toast.LENGTH_SHORT).show();
                 
@@ -872,4 +867,50 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                 android.util.Log.e("PostAdapter", "Failed to get deleter profile info", e);
             });
     }
+
+    /**
+     * Posts are identified by postId. Reaction and comment count changes are sent
+     * as payloads so only those views are rebound.
+     */
+    private static class PostDiffCallback extends DiffUtil.ItemCallback<Post> {
+        @Override
+        public boolean areItemsTheSame(@NonNull Post oldPost, @NonNull Post newPost) {
+            return Objects.equals(oldPost.postId, newPost.postId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Post oldPost, @NonNull Post newPost) {
+            return sameExceptCounts(oldPost, newPost)
+                && sameReactions(oldPost, newPost)
+                && oldPost.commentCount == newPost.commentCount;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Post oldPost, @NonNull Post newPost) {
+            if (!sameExceptCounts(oldPost, newPost)) {
+                return null; // Full rebind
+            }
+            boolean reactionsChanged = !sameReactions(oldPost, newPost);
+            boolean commentsChanged = oldPost.commentCount != newPost.commentCount;
+            if (reactionsChanged && commentsChanged) {
+                return null;
+            }
+            return reactionsChanged ? PAYLOAD_REACTIONS : PAYLOAD_COMMENT_COUNT;
+        }
+
+        private static boolean sameExceptCounts(Post oldPost, Post newPost) {
+            return Objects.equals(oldPost.content, newPost.content)
+                && Objects.equals(oldPost.imageUrl, newPost.imageUrl)
+                && Objects.equals(oldPost.authorName, newPost.authorName)
+                && Objects.equals(oldPost.authorProfilePicture, newPost.authorProfilePicture)
+                && Objects.equals(oldPost.categories, newPost.categories)
+                && Objects.equals(oldPost.userId, newPost.userId)
+                && oldPost.isAnonymous == newPost.isAnonymous;
+        }
+
+        private static boolean sameReactions(Post oldPost, Post newPost) {
+            return Objects.equals(oldPost.reactions, newPost.reactions)
+                && Objects.equals(oldPost.userReactions, newPost.userReactions);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package com.rayseal.supportapp;
+
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Distributed counters for post reactions and comment counts.
+ * Clients never increment the post document itself. Each increment goes to one of NUM_SHARDS
+ * shard documents (posts/{postId}/counter_shards/{n}), picked at random, so a busy post can take
+ * NUM_SHARDS times the writes of a single document. The aggregatePostCounters Cloud Function
+ * periodically folds the shard deltas into the post's reactions and commentCount fields,
+ * which is what the feed reads.
+ * Who reacted is kept in posts/{postId}/reactions/{userId}, one small document per reacting user,
+ * instead of growing arrays on the post.
+ */
+public class PostCounters {
+    private static final String TAG = "PostCounters";
+    public static final int NUM_SHARDS = 10;
+    static final String SHARDS_COLLECTION = "counter_shards";
+    static final String REACTIONS_COLLECTION = "reactions";
+    private static final int MAX_IDS_PER_QUERY = 10; // Firestore 'in' query limit
+    private static final Random RANDOM = new Random();
+
+    private PostCounters() {}
+
+    private static DocumentReference randomShard(FirebaseFirestore db, String postId) {
+        return db.collection("posts").document(postId)
+            .collection(SHARDS_COLLECTION).document(String.valueOf(RANDOM.nextInt(NUM_SHARDS)));
+    }
+
+    /**
+     * The document recording a user's reaction to a post
+     */
+    public static DocumentReference reactionRef(FirebaseFirestore db, String postId, String userId) {
+        return db.collection("posts").document(postId)
+            .collection(REACTIONS_COLLECTION).document(userId);
+    }
+
+    /**
+     * Add a reaction count change to the batch
+     */
+    public static void incrementReaction(WriteBatch batch, FirebaseFirestore db, String postId,
+                                         String reactionType, int delta) {
+        Map<String, Object> reactions = new HashMap<>();
+        reactions.put(reactionType, FieldValue.increment(delta));
+        Map<String, Object> update = new HashMap<>();
+        update.put("reactions", reactions);
+        update.put("updatedAt", FieldValue.serverTimestamp());
+        batch.set(randomShard(db, postId), update, SetOptions.merge());
+    }
+
+    /**
+     * Add a comment count change to the batch
+     */
+    public static void incrementCommentCount(WriteBatch batch, FirebaseFirestore db, String postId, int delta) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("commentCount", FieldValue.increment(delta));
+        update.put("updatedAt", FieldValue.serverTimestamp());
+        batch.set(randomShard(db, postId), update, SetOptions.merge());
+    }
+
+    /**
+     * Add "user reacted with type" to the batch, or remove the reaction if type is null
+     */
+    public static void setUserReaction(WriteBatch batch, FirebaseFirestore db, String postId,
+                                       String userId, String reactionType) {
+        DocumentReference ref = reactionRef(db, postId, userId);
+        if (reactionType == null) {
+            batch.delete(ref);
+            return;
+        }
+        Map<String, Object> reaction = new HashMap<>();
+        reaction.put("userId", userId);
+        reaction.put("postId", postId);
+        reaction.put("type", reactionType);
+        reaction.put("timestamp", FieldValue.serverTimestamp());
+        batch.set(ref, reaction);
+    }
+
+    /**
+     * Look up which of the posts the user has reacted to and record it in each post's userReactions.
+     * Uses one collection-group query per 10 posts. The listener is always called, also on failure.
+     */
+    public static void loadUserReactions(FirebaseFirestore db, String userId, List<Post> posts,
+                                         OnUserReactionsLoadedListener listener) {
+        List<String> postIds = new ArrayList<>();
+        Map<String, Post> postsById = new HashMap<>();
+        for (Post post : posts) {
+            if (post.postId != null && postsById.put(post.postId, post) == null) {
+                postIds.add(post.postId);
+            }
+        }
+        if (userId == null || userId.isEmpty() || postIds.isEmpty()) {
+            listener.onUserReactionsLoaded();
+            return;
+        }
+
+        List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+        for (int i = 0; i < postIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<String> chunk = postIds.subList(i, Math.min(postIds.size(), i + MAX_IDS_PER_QUERY));
+            tasks.add(db.collectionGroup(REACTIONS_COLLECTION)
+                .whereEqualTo("userId", userId)
+                .whereIn("postId", new ArrayList<>(chunk))
+                .get());
+        }
+
+        Tasks.whenAllSuccess(tasks)
+            .addOnSuccessListener(results -> {
+                for (Object result : results) {
+                    for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                        Post post = postsById.get(doc.getString("postId"));
+                        String type = doc.getString("type");
+                        if (post != null && type != null) {
+                            ReactionWriteCoalescer.applyMembership(post, userId, type);
+                        }
+                    }
+                }
+                listener.onUserReactionsLoaded();
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading user reactions", e);
+                listener.onUserReactionsLoaded();
+            });
+    }
+
+    public interface OnUserReactionsLoadedListener {
+        void onUserReactionsLoaded();
+    }
+}
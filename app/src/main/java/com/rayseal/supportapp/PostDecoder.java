@@ -0,0 +1,132 @@
+package com.rayseal.supportapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Converts post documents from Firestore into Post objects.
+ * Decoding runs on a background thread and results are delivered on the main thread,
+ * so large result sets don't block the UI.
+ */
+public class PostDecoder {
+    private static final String TAG = "PostDecoder";
+
+    // Single worker keeps batches in the order they were submitted
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private PostDecoder() {}
+
+    /**
+     * Decode a batch of documents off the main thread and deliver the posts on the main thread.
+     * Documents that can't be decoded are skipped.
+     */
+    public static void decodeAsync(List<DocumentSnapshot> docs, OnPostsDecodedListener listener) {
+        final List<DocumentSnapshot> batch = new ArrayList<>(docs);
+        EXECUTOR.execute(() -> {
+            List<Post> decoded = decodeAll(batch);
+            MAIN_HANDLER.post(() -> listener.onPostsDecoded(decoded));
+        });
+    }
+
+    /**
+     * Decode a batch of documents on the calling thread
+     */
+    public static List<Post> decodeAll(List<DocumentSnapshot> docs) {
+        List<Post> decoded = new ArrayList<>(docs.size());
+        int errorCount = 0;
+        for (DocumentSnapshot doc : docs) {
+            try {
+                Post post = decode(doc);
+                if (post != null) {
+                    decoded.add(post);
+                }
+            } catch (Exception e) {
+                errorCount++;
+                Log.e(TAG, "Error parsing post " + doc.getId() + ": " + e.getMessage(), e);
+            }
+        }
+        Log.d(TAG, "Decoded " + decoded.size() + " of " + docs.size() + " posts, errors: " + errorCount);
+        return decoded;
+    }
+
+    /**
+     * Decode a single post document.
+     * Returns null for posts without content.
+     */
+    @SuppressWarnings("unchecked")
+    public static Post decode(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        if (data == null) {
+            return null;
+        }
+
+        Object contentObj = data.get("content");
+        String content = contentObj instanceof String ? (String) contentObj : null;
+        if (content == null || content.trim().isEmpty()) {
+            Log.w(TAG, "Skipping post " + doc.getId() + " - empty content");
+            return null;
+        }
+
+        Object catsObj = data.get("categories");
+        List<String> cats = catsObj instanceof List ? (List<String>) catsObj : null;
+
+        // Handle timestamp - could be server timestamp (null while pending) or long value
+        long timestamp = System.currentTimeMillis();
+        Object timestampObj = data.get("timestamp");
+        if (timestampObj instanceof Timestamp) {
+            timestamp = ((Timestamp) timestampObj).toDate().getTime();
+        } else if (timestampObj instanceof Long) {
+            timestamp = (Long) timestampObj;
+        }
+
+        // The Post constructor fills defaults for missing author fields and categories
+        Post post = new Post(doc.getId(), content, cats, getString(data, "imageUrl"),
+            getString(data, "userId"), getString(data, "authorName"),
+            getString(data, "authorProfilePicture"), timestamp);
+
+        Object variants = data.get("imageVariants");
+        if (variants instanceof Map) {
+            post.imageVariants = (Map<String, String>) variants;
+        }
+
+        // Load anonymous flag (backward compatibility)
+        Object isAnonymous = data.get("isAnonymous");
+        post.isAnonymous = isAnonymous instanceof Boolean && (Boolean) isAnonymous;
+
+        // Load reactions
+        Object reactions = data.get("reactions");
+        if (reactions instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) reactions).entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    post.reactions.put(entry.getKey(), ((Number) entry.getValue()).intValue());
+                }
+            }
+        }
+
+        // Who reacted lives in posts/{postId}/reactions, see PostCounters.loadUserReactions
+
+        // Load comment count
+        Object commentCount = data.get("commentCount");
+        post.commentCount = commentCount instanceof Number ? ((Number) commentCount).intValue() : 0;
+
+        return post;
+    }
+
+    private static String getString(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public interface OnPostsDecodedListener {
+        void onPostsDecoded(List<Post> posts);
+    }
+}
@@ -0,0 +1,261 @@
+package com.rayseal.supportapp;
+
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cursor-based pager for the public feed.
+ * Loads posts newest first in fixed-size pages using startAfter cursors,
+ * so only the visible part of the feed is downloaded.
+ * The "Friends Posts" filter pages the user's timeline (timelines/{uid}/entries),
+ * which a Cloud Function fills when friends post, and then fetches those posts by ID.
+ * The first page of the main feed is also read from Firestore's on-disk cache so it can be
+ * shown straight away, then replaced once the server copy arrives.
+ * A delivered page keeps the pager loading until the listener calls pageApplied(), so the
+ * next page is never requested while the previous one is still being decoded and appended.
+ */
+public class PostFeedPager {
+    private static final String TAG = "PostFeedPager";
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final String FILTER_FRIENDS = "Friends Posts";
+    private static final int MAX_IDS_PER_QUERY = 10; // Firestore 'in' query limit
+
+    private final FirebaseFirestore db;
+    private final int pageSize;
+    private final OnPageLoadedListener listener;
+
+    private String categoryFilter = "All";
+    private DocumentSnapshot lastVisible;
+    private boolean loading = false;
+    private boolean endReached = false;
+    // Bumped on every reset so responses from a previous filter are dropped
+    private int generation = 0;
+
+    public PostFeedPager(FirebaseFirestore db, OnPageLoadedListener listener) {
+        this(db, DEFAULT_PAGE_SIZE, listener);
+    }
+
+    public PostFeedPager(FirebaseFirestore db, int pageSize, OnPageLoadedListener listener) {
+        this.db = db;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.listener = listener;
+    }
+
+    /**
+     * Start over from the newest post with the given category filter ("All" for no filter)
+     */
+    public void reset(String categoryFilter) {
+        this.categoryFilter = categoryFilter != null ? categoryFilter : "All";
+        this.lastVisible = null;
+        this.loading = false;
+        this.endReached = false;
+        this.generation++;
+    }
+
+    /**
+     * Load the next page if one is not already in flight and the end has not been reached
+     */
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        final int requestGeneration = generation;
+        final boolean firstPage = lastVisible == null;
+
+        if (FILTER_FRIENDS.equals(categoryFilter)) {
+            loadNextTimelinePage(requestGeneration, firstPage);
+            return;
+        }
+
+        Query query = db.collection("posts");
+        if (!"All".equals(categoryFilter)) {
+            query = query.whereArrayContains("categories", categoryFilter);
+        }
+        query = query.orderBy("timestamp", Query.Direction.DESCENDING);
+        if (lastVisible != null) {
+            query = query.startAfter(lastVisible);
+        }
+
+        if (firstPage) {
+            loadCachedFirstPage(query.limit(pageSize), requestGeneration);
+        }
+
+        Log.d(TAG, "Loading " + (firstPage ? "first" : "next") + " page for filter: " + categoryFilter);
+        query.limit(pageSize).get()
+            .addOnSuccessListener(querySnapshot -> {
+                if (requestGeneration != generation) {
+                    Log.d(TAG, "Dropping stale page for previous filter");
+                    return;
+                }
+
+                List<DocumentSnapshot> docs = new ArrayList<>(querySnapshot.getDocuments());
+                if (!docs.isEmpty()) {
+                    lastVisible = docs.get(docs.size() - 1);
+                }
+                if (docs.size() < pageSize) {
+                    endReached = true;
+                }
+
+                Log.d(TAG, "Page loaded with " + docs.size() + " posts, end reached: " + endReached);
+                listener.onPageLoaded(docs, firstPage, !endReached);
+            })
+            .addOnFailureListener(e -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                Log.e(TAG, "Error loading page", e);
+                listener.onPageError(e, firstPage);
+            });
+    }
+
+    /**
+     * Deliver whatever the local cache holds for the first page, unless the server page beat it
+     */
+    private void loadCachedFirstPage(Query firstPageQuery, int requestGeneration) {
+        firstPageQuery.get(Source.CACHE)
+            .addOnSuccessListener(cachedSnapshot -> {
+                boolean serverPageDelivered = !loading || lastVisible != null || endReached;
+                if (requestGeneration != generation || serverPageDelivered || cachedSnapshot.isEmpty()) {
+                    return;
+                }
+                Log.d(TAG, "Showing " + cachedSnapshot.size() + " cached posts while loading from server");
+                listener.onCachedPageLoaded(new ArrayList<>(cachedSnapshot.getDocuments()));
+            })
+            .addOnFailureListener(e -> Log.d(TAG, "No cached first page: " + e.getMessage()));
+    }
+
+    private void loadNextTimelinePage(int requestGeneration, boolean firstPage) {
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            endReached = true;
+            listener.onPageLoaded(new ArrayList<>(), firstPage, false);
+            return;
+        }
+        String currentUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+
+        Query query = db.collection("timelines").document(currentUserId).collection("entries")
+            .orderBy("timestamp", Query.Direction.DESCENDING);
+        if (lastVisible != null) {
+            query = query.startAfter(lastVisible);
+        }
+
+        Log.d(TAG, "Loading " + (firstPage ? "first" : "next") + " timeline page");
+        query.limit(pageSize).get()
+            .addOnSuccessListener(entriesSnapshot -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+
+                List<DocumentSnapshot> entries = entriesSnapshot.getDocuments();
+                // Entry IDs are post IDs, in timeline order
+                List<String> postIds = new ArrayList<>();
+                for (DocumentSnapshot entry : entries) {
+                    postIds.add(entry.getId());
+                }
+                fetchPostsInOrder(postIds, entries, requestGeneration, firstPage);
+            })
+            .addOnFailureListener(e -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                Log.e(TAG, "Error loading timeline page", e);
+                listener.onPageError(e, firstPage);
+            });
+    }
+
+    /**
+     * Fetch posts by ID in chunks and deliver them in the order given.
+     * Posts deleted since they were fanned out are skipped.
+     * The cursor only moves past the page's entries once its posts have been fetched,
+     * so a failed fetch is retried from the same entries on the next load.
+     */
+    private void fetchPostsInOrder(List<String> postIds, List<DocumentSnapshot> entries,
+                                   int requestGeneration, boolean firstPage) {
+        if (postIds.isEmpty()) {
+            endReached = true;
+            listener.onPageLoaded(new ArrayList<>(), firstPage, !endReached);
+            return;
+        }
+
+        List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+        for (int i = 0; i < postIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<String> chunk = postIds.subList(i, Math.min(postIds.size(), i + MAX_IDS_PER_QUERY));
+            tasks.add(db.collection("posts").whereIn(FieldPath.documentId(), new ArrayList<>(chunk)).get());
+        }
+
+        Tasks.whenAllSuccess(tasks)
+            .addOnSuccessListener(results -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                lastVisible = entries.get(entries.size() - 1);
+                if (entries.size() < pageSize) {
+                    endReached = true;
+                }
+
+                Map<String, DocumentSnapshot> postsById = new HashMap<>();
+                for (Object result : results) {
+                    for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                        postsById.put(doc.getId(), doc);
+                    }
+                }
+                List<DocumentSnapshot> docs = new ArrayList<>();
+                for (String postId : postIds) {
+                    DocumentSnapshot doc = postsById.get(postId);
+                    if (doc != null) {
+                        docs.add(doc);
+                    }
+                }
+
+                Log.d(TAG, "Timeline page loaded with " + docs.size() + " posts, end reached: " + endReached);
+                listener.onPageLoaded(docs, firstPage, !endReached);
+            })
+            .addOnFailureListener(e -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                Log.e(TAG, "Error loading timeline posts", e);
+                listener.onPageError(e, firstPage);
+            });
+    }
+
+    /**
+     * Call once a page delivered through onPageLoaded has been added to the feed (or dropped),
+     * to allow the next page to load
+     */
+    public void pageApplied() {
+        loading = false;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    public interface OnPageLoadedListener {
+        void onCachedPageLoaded(List<DocumentSnapshot> docs);
+        /**
+         * The pager stays loading until pageApplied() is called for this page
+         */
+        void onPageLoaded(List<DocumentSnapshot> docs, boolean firstPage, boolean hasMore);
+        void onPageError(Exception e, boolean firstPage);
+    }
+}
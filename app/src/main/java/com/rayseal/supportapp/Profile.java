@@ -2,7 +2,9 @@ package com.rayseal.supportapp;
 
 import com.google.firebase.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Profile {
     public String uid = "";
@@ -11,6 +13,7 @@ public class Profile {
     public String bio = "";
     public String contact = "";
     public String profilePictureUrl = "";
+    public Map<String, String> profilePictureVariants = new HashMap<>(); // variant size in px -> URL
     public String coverPhotoUrl = "";
     public List<String> supportCategories = new ArrayList<>();
     public PrivacySettings privacy = new PrivacySettings();
@@ -217,7 +217,7 @@ public class ProfileActivity extends AppCompatActivity {
                                 userProfile.setMemberSinceFromMillis(memberSinceMillis);
                                 // Update the profile to save the new Timestamp format
                                 if (isOwnProfile) {
-                                    db.collection("profiles").document(profileUserId).set(userProfile)
+                                    db.collection("profiles").document(profileUserId).set(userProfile, SetOptions.merge())
                                         .addOnFailureListener(e -> {
                                             android.util.Log.e("ProfileActivity", "Failed to update profile during migration", e);
                                         });
@@ -227,7 +227,7 @@ public class ProfileActivity extends AppCompatActivity {
                             // If no memberSince exists at all, set it to now
                             userProfile.memberSince = com.google.firebase.Timestamp.now();
                             if (isOwnProfile) {
-                                db.collection("profiles").document(profileUserId).set(userProfile)
+                                db.collection("profiles").document(profileUserId).set(userProfile, SetOptions.merge())
                                     .addOnFailureListener(e -> {
                                         android.util.Log.e("ProfileActivity", "Failed to set memberSince", e);
                                     });
@@ -394,8 +394,9 @@ public class ProfileActivity extends AppCompatActivity {
 
         // Upload profile photo first
         if (profilePicUri != null) {
-            uploadProfileImage(profilePicUri, uid + "_profile.jpg", url -> {
+            uploadProfileImage(profilePicUri, uid + "_profile.jpg", (url, variants) -> {
                 p.profilePictureUrl = url;
+                p.profilePictureVariants = variants;
                 saveCoverPhotoIfNeeded(p, uid);
             });
         } else {
@@ -406,7 +407,7 @@ public class ProfileActivity extends AppCompatActivity {
     // Upload cover photo to cover_photos/
     private void saveCoverPhotoIfNeeded(Profile p, String uid) {
         if (coverPhotoUri != null) {
-            uploadCoverImage(coverPhotoUri, uid + "_cover.jpg", url -> {
+            uploadCoverImage(coverPhotoUri, uid + "_cover.jpg", (url, variants) -> {
                 p.coverPhotoUrl = url;
                 saveProfileToFirestore(p);
             });
@@ -417,28 +418,40 @@ public class ProfileActivity extends AppCompatActivity {
 
     // Profile photo upload (profile_images/)
     private void uploadProfileImage(Uri uri, String filename, OnImageUploadListener listener) {
-        StorageReference ref = storageRef.child("profile_images/" + filename);
-        ref.putFile(uri)
-            .addOnSuccessListener(taskSnapshot -> ref.getDownloadUrl().addOnSuccessListener(uri1 -> listener.onSuccess(uri1.toString())))
-            .addOnFailureListener(e -> {
-                Toast.makeText(this, "Failed to upload profile photo.", Toast.LENGTH_SHORT).show();
-                listener.onSuccess(""); // Continue with blank
-            });
+        uploadImage(uri, storageRef.child("profile_images/" + filename), ImageUploader.PROFILE_PICTURE,
+            "Failed to upload profile photo.", listener);
     }
 
     // Cover photo upload (cover_photos/)
     private void uploadCoverImage(Uri uri, String filename, OnImageUploadListener listener) {
-        StorageReference ref = storageRef.child("cover_photos/" + filename);
-        ref.putFile(uri)
-            .addOnSuccessListener(taskSnapshot -> ref.getDownloadUrl().addOnSuccessListener(uri1 -> listener.onSuccess(uri1.toString())))
-            .addOnFailureListener(e -> {
-                Toast.makeText(this, "Failed to upload cover photo.", Toast.LENGTH_SHORT).show();
-                listener.onSuccess(""); // Continue with blank
-            });
+        uploadImage(uri, storageRef.child("cover_photos/" + filename), ImageUploader.COVER_PHOTO,
+            "Failed to upload cover photo.", listener);
+    }
+
+    private void uploadImage(Uri uri, StorageReference ref, ImageUploader.Spec spec, String failureMessage,
+                             OnImageUploadListener listener) {
+        ImageUploader.getInstance(this).upload(uri, ref, spec, new ImageUploader.OnImageUploadListener() {
+            @Override
+            public void onProgress(int percent) {
+                android.util.Log.d("ProfileActivity", "Uploading " + ref.getPath() + ": " + percent + "%");
+            }
+
+            @Override
+            public void onSuccess(String downloadUrl, Map<String, String> variantUrls) {
+                listener.onSuccess(downloadUrl, variantUrls);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Toast.makeText(ProfileActivity.this, failureMessage, Toast.LENGTH_SHORT).show();
+                listener.onSuccess("", new HashMap<>()); // Continue with blank
+            }
+        });
     }
 
     private void saveProfileToFirestore(Profile p) {
-        db.collection("profiles").document(p.uid).set(p)
+        // Merge so fields the Profile class doesn't map (the search index) survive the save
+        db.collection("profiles").document(p.uid).set(p, SetOptions.merge())
                 .addOnSuccessListener(unused -> {
                     Toast.makeText(this, "Profile saved.", Toast.LENGTH_SHORT).show();
                     setEditing(false);
@@ -465,7 +478,7 @@ public class ProfileActivity extends AppCompatActivity {
     }
 
     private interface OnImageUploadListener {
-        void onSuccess(String url);
+        void onSuccess(String url, Map<String, String> variants);
     }
 
     private void showCrisisDialog() {
@@ -497,42 +510,38 @@ public class ProfileActivity extends AppCompatActivity {
     private void checkFriendshipStatus(String targetUserId) {
         String currentUserId = mAuth.getCurrentUser().getUid();
         
-        db.collection("friends")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    String status = "none"; // none, pending, accepted
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        Friend friend = doc.toObject(Friend.class);
-                        if (friend != null && friend.involvesUser(currentUserId) && friend.involvesUser(targetUserId)) {
-                            status = friend.status;
-                            break;
-                        }
-                    }
-                    
-                    // Update button text based on friendship status
-                    switch (status) {
-                        case "accepted":
-                            btnAddFriend.setText("Friends");
-                            btnAddFriend.setEnabled(false);
-                            btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
-                            break;
-                        case "pending":
-                            btnAddFriend.setText("Request Sent");
-                            btnAddFriend.setEnabled(false);
-                            btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
-                            break;
-                        default:
-                            btnAddFriend.setText("Add Friend");
-                            btnAddFriend.setEnabled(true);
-                            btnAddFriend.setBackgroundTintList(getColorStateList(R.color.sky_blue));
-                            break;
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // If we can't check, just show the default
-                    btnAddFriend.setText("Add Friend");
-                    btnAddFriend.setEnabled(true);
-                });
+        FriendshipLookup.find(db, currentUserId, targetUserId, new FriendshipLookup.OnFriendshipFoundListener() {
+            @Override
+            public void onFriendshipFound(Friend friend) {
+                String status = friend != null && friend.status != null ? friend.status : "none"; // none, pending, accepted
+                
+                // Update button text based on friendship status
+                switch (status) {
+                    case "accepted":
+                        btnAddFriend.setText("Friends");
+                        btnAddFriend.setEnabled(false);
+                        btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
+                        break;
+                    case "pending":
+                        btnAddFriend.setText("Request Sent");
+                        btnAddFriend.setEnabled(false);
+                        btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
+                        break;
+                    default:
+                        btnAddFriend.setText("Add Friend");
+                        btnAddFriend.setEnabled(true);
+                        btnAddFriend.setBackgroundTintList(getColorStateList(R.color.sky_blue));
+                        break;
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // If we can't check, just show the default
+                btnAddFriend.setText("Add Friend");
+                btnAddFriend.setEnabled(true);
+            }
+        });
     }
     
     private void sendFriendRequest() {
@@ -544,38 +553,33 @@ public class ProfileActivity extends AppCompatActivity {
         String currentUserId = mAuth.getCurrentUser().getUid();
         
         // Check if friendship already exists
-        db.collection("friends")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    boolean alreadyExists = false;
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        Friend existing = doc.toObject(Friend.class);
-                        if (existing != null && existing.involvesUser(currentUserId) && existing.involvesUser(viewingUserId)) {
-                            alreadyExists = true;
-                            break;
-                        }
-                    }
+        FriendshipLookup.find(db, currentUserId, viewingUserId, new FriendshipLookup.OnFriendshipFoundListener() {
+            @Override
+            public void onFriendshipFound(Friend existing) {
+                if (existing == null) {
+                    Friend newFriend = new Friend(currentUserId, viewingUserId, currentUserId);
+                    db.collection("friends")
+                            .document(Friend.pairId(currentUserId, viewingUserId))
+                            .set(newFriend)
+                            .addOnSuccessListener(aVoid -> {
+                                Toast.makeText(ProfileActivity.this, "Friend request sent!", Toast.LENGTH_SHORT).show();
+                                btnAddFriend.setText("Request Sent");
+                                btnAddFriend.setEnabled(false);
+                                btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
+                            })
+                            .addOnFailureListener(e -> {
+                                Toast.makeText(ProfileActivity.this, "Failed to send request", Toast.LENGTH_SHORT).show();
+                            });
+                } else {
+                    Toast.makeText(ProfileActivity.this, "Friendship already exists", Toast.LENGTH_SHORT).show();
+                    checkFriendshipStatus(viewingUserId);
+                }
+            }
 
-                    if (!alreadyExists) {
-                        Friend newFriend = new Friend(currentUserId, viewingUserId, currentUserId);
-                        db.collection("friends")
-                                .add(newFriend)
-                                .addOnSuccessListener(documentReference -> {
-                                    Toast.makeText(this, "Friend request sent!", Toast.LENGTH_SHORT).show();
-                                    btnAddFriend.setText("Request Sent");
-                                    btnAddFriend.setEnabled(false);
-                                    btnAddFriend.setBackgroundTintList(getColorStateList(android.R.color.darker_gray));
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(this, "Failed to send request", Toast.LENGTH_SHORT).show();
-                                });
-                    } else {
-                        Toast.makeText(this, "Friendship already exists", Toast.LENGTH_SHORT).show();
-                        checkFriendshipStatus(viewingUserId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error checking friendship status", Toast.LENGTH_SHORT).show();
-                });
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(ProfileActivity.this, "Error checking friendship status", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
@@ -0,0 +1,203 @@
+package com.rayseal.supportapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads other users' profiles for lists and dialogs.
+ * Requests made in the same main-thread turn (e.g. while a RecyclerView binds a screenful of
+ * rows) are collected and fetched together with whereIn(documentId) queries of up to 10 IDs.
+ * A profile that is already being fetched isn't requested again, and loaded profiles are kept
+ * in an LRU cache for PROFILE_TTL_MS, so scrolling back doesn't re-read them.
+ * Must be used from the main thread.
+ */
+public class ProfileHydrator {
+    private static final String TAG = "ProfileHydrator";
+    private static final int MAX_IDS_PER_QUERY = 10; // Firestore 'in' query limit
+    private static final int MAX_CACHED_PROFILES = 500;
+    private static final long PROFILE_TTL_MS = 5 * 60 * 1000;
+
+    private static ProfileHydrator instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, CachedProfile> cache =
+        new LinkedHashMap<String, CachedProfile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+                return size() > MAX_CACHED_PROFILES;
+            }
+        };
+    private final Map<String, List<OnProfileLoadedListener>> waiting = new HashMap<>();
+    private final Set<String> queued = new LinkedHashSet<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private boolean flushScheduled = false;
+
+    private ProfileHydrator() {}
+
+    public static synchronized ProfileHydrator getInstance() {
+        if (instance == null) {
+            instance = new ProfileHydrator();
+        }
+        return instance;
+    }
+
+    /**
+     * Cached profile if it is still fresh, otherwise null
+     */
+    public Profile getCached(String userId) {
+        CachedProfile cached = cache.get(userId);
+        if (cached == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - cached.loadedAt > PROFILE_TTL_MS) {
+            cache.remove(userId);
+            return null;
+        }
+        return cached.profile;
+    }
+
+    /**
+     * Deliver a user's profile, from the cache if possible, otherwise with the next batch.
+     * The profile is null if it doesn't exist or couldn't be loaded.
+     */
+    public void get(String userId, OnProfileLoadedListener listener) {
+        if (userId == null || userId.isEmpty()) {
+            listener.onProfileLoaded(userId, null);
+            return;
+        }
+        Profile cached = getCached(userId);
+        if (cached != null) {
+            listener.onProfileLoaded(userId, cached);
+            return;
+        }
+
+        List<OnProfileLoadedListener> listeners = waiting.get(userId);
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+            waiting.put(userId, listeners);
+        }
+        listeners.add(listener);
+        enqueue(userId);
+    }
+
+    /**
+     * Deliver the profiles of several users at once, keyed by user ID.
+     * Users whose profile couldn't be loaded are left out.
+     */
+    public void getAll(Collection<String> userIds, OnProfilesLoadedListener listener) {
+        Set<String> remaining = new LinkedHashSet<>(userIds);
+        remaining.remove(null);
+        Map<String, Profile> profiles = new LinkedHashMap<>();
+        if (remaining.isEmpty()) {
+            listener.onProfilesLoaded(profiles);
+            return;
+        }
+
+        for (String userId : new ArrayList<>(remaining)) {
+            get(userId, (loadedId, profile) -> {
+                if (profile != null) {
+                    profiles.put(loadedId, profile);
+                }
+                remaining.remove(loadedId);
+                if (remaining.isEmpty()) {
+                    listener.onProfilesLoaded(profiles);
+                }
+            });
+        }
+    }
+
+    /**
+     * Start loading profiles that will be needed soon, without waiting for them
+     */
+    public void prefetch(Collection<String> userIds) {
+        for (String userId : userIds) {
+            if (userId != null && !userId.isEmpty() && getCached(userId) == null) {
+                enqueue(userId);
+            }
+        }
+    }
+
+    private void enqueue(String userId) {
+        if (inFlight.contains(userId) || !queued.add(userId)) {
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.post(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        List<String> ids = new ArrayList<>(queued);
+        queued.clear();
+        inFlight.addAll(ids);
+
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+            List<String> chunk = new ArrayList<>(ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_QUERY)));
+            db.collection("profiles").whereIn(FieldPath.documentId(), chunk).get()
+                .addOnSuccessListener(querySnapshot -> {
+                    Map<String, Profile> loaded = new HashMap<>();
+                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                        Profile profile = doc.toObject(Profile.class);
+                        if (profile != null) {
+                            loaded.put(doc.getId(), profile);
+                            cache.put(doc.getId(), new CachedProfile(profile));
+                        }
+                    }
+                    for (String userId : chunk) {
+                        deliver(userId, loaded.get(userId));
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading " + chunk.size() + " profiles", e);
+                    for (String userId : chunk) {
+                        deliver(userId, null);
+                    }
+                });
+        }
+    }
+
+    private void deliver(String userId, Profile profile) {
+        inFlight.remove(userId);
+        List<OnProfileLoadedListener> listeners = waiting.remove(userId);
+        if (listeners == null) {
+            return;
+        }
+        for (OnProfileLoadedListener listener : listeners) {
+            listener.onProfileLoaded(userId, profile);
+        }
+    }
+
+    private static class CachedProfile {
+        final Profile profile;
+        final long loadedAt = SystemClock.elapsedRealtime();
+
+        CachedProfile(Profile profile) {
+            this.profile = profile;
+        }
+    }
+
+    public interface OnProfileLoadedListener {
+        void onProfileLoaded(String userId, Profile profile);
+    }
+
+    public interface OnProfilesLoadedListener {
+        void onProfilesLoaded(Map<String, Profile> profiles);
+    }
+}
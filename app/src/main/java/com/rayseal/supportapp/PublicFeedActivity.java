@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.core.widget.NestedScrollView;
 import com.bumptech.glide.Glide;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.firestore.*;
@@ -25,7 +26,6 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
-import com.google.firebase.Timestamp;
 import com.google.firebase.messaging.FirebaseMessaging;
 import java.util.*;
 import android.widget.GridLayout;
@@ -41,6 +41,12 @@ public class PublicFeedActivity extends AppCompatActivity {
     private CheckBox anonymousCheckbox;
     private NotificationIconHelper notificationIconHelper;
     private String scrollToPostId; // For notification navigation
+    private int scrollTargetPagesLoaded = 0;
+    private int loadGeneration = 0; // Bumped per loadPosts() so late decode results are dropped
+    private boolean showingCachedPage = false; // First page came from the local cache
+    private boolean serverPageShown = false; // A server page has been applied since loadPosts()
+    private NestedScrollView feedScrollView;
+    private PostFeedPager postFeedPager;
     private List<String> categories = Arrays.asList(
             "Anxiety","Depression","Insomnia","PTSD","Gender Dysphoria","Addiction","Other"
     );
@@ -52,6 +58,7 @@ public class PublicFeedActivity extends AppCompatActivity {
     private static final int PICK_IMAGE_REQUEST = 1;
     private static final int REQUEST_IMAGE_PERMISSION = 100;
     private static final int NOTIFICATION_PERMISSION_REQUEST_CODE = 1001;
+    private static final int MAX_SCROLL_TARGET_PAGES = 5; // Pages to search for a notification's post
     private static final String TAG = "PublicFeedActivity";
 
     @Override
@@ -61,10 +68,29 @@ public class PublicFeedActivity extends AppCompatActivity {
 
         FirebaseApp.initializeApp(this);
         db = FirebaseFirestore.getInstance();
+        postFeedPager = new PostFeedPager(db, new PostFeedPager.OnPageLoadedListener() {
+            @Override
+            public void onCachedPageLoaded(List<DocumentSnapshot> docs) {
+                onFeedCachedPageLoaded(docs);
+            }
+
+            @Override
+            public void onPageLoaded(List<DocumentSnapshot> docs, boolean firstPage, boolean hasMore) {
+                onFeedPageLoaded(docs, firstPage, hasMore);
+            }
+
+            @Override
+            public void onPageError(Exception e, boolean firstPage) {
+                onFeedPageError(e, firstPage);
+            }
+        });
 
         // Initialize FCM token
         initializeFCMToken();
 
+        // Pick up any extra moderation keywords configured by admins
+        ModerationUtils.loadKeywordLists();
+
         // Request notification permissions as fallback
         requestNotificationPermission();
 
@@ -75,6 +101,7 @@ public class PublicFeedActivity extends AppCompatActivity {
         chatButton = findViewById(R.id.chatButton);
         categoryFilterSpinner = findViewById(R.id.categoryFilterSpinner);
         postsRecyclerView = findViewById(R.id.postsRecyclerView);
+        feedScrollView = findViewById(R.id.feedScrollView);
         postImagePreview = findViewById(R.id.postImagePreview);
         selectImageButton = findViewById(R.id.selectImageButton);
         anonymousCheckbox = findViewById(R.id.anonymousCheckbox);
@@ -120,13 +147,15 @@ public class PublicFeedActivity extends AppCompatActivity {
         setupCategoryCheckboxes();
         setupCategoryFilter();
         setupRecyclerView();
+        setupFeedPrefetch();
 
         postButton.setOnClickListener(v -> submitPost());
         crisisButton.setOnClickListener(v -> showCrisisDialog());
         chatButton.setOnClickListener(v -> openChatRooms());
         selectImageButton.setOnClickListener(v -> checkImagePermissionAndOpenPicker());
 
-        // Test Firestore connectivity before loading posts
+        // Load posts straight away so the cached first page isn't held up by the network
+        loadPosts();
         testFirestoreConnection();
     }
     
@@ -137,14 +166,10 @@ public class PublicFeedActivity extends AppCompatActivity {
         db.collection("posts").limit(1).get()
             .addOnSuccessListener(querySnapshot -> {
                 Log.d(TAG, "Firestore connection successful");
-                loadPosts();
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Firestore connection failed: " + e.getMessage(), e);
                 Toast.makeText(this, "Connection error: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                
-                // Still try to load posts in case it's a temporary issue
-                loadPosts();
             });
     }
 
@@ -336,80 +361,77 @@ public class PublicFeedActivity extends AppCompatActivity {
                     if (profile != null) {
                         authorName = profile.displayName != null && !profile.displayName.isEmpty() ? 
                             profile.displayName : "Anonymous";
-                        authorProfilePicture = profile.profilePictureUrl != null ? profile.profilePictureUrl : "";
+                        authorProfilePicture = profile.profilePictureUrl != null ? ImageVariants.avatar(profile) : "";
                     }
                 }
                 
-                Map<String, Object> post = new HashMap<>();
-                post.put("userId", userId);
-                post.put("authorName", authorName);
-                post.put("authorProfilePicture", authorProfilePicture);
-                post.put("content", content);
-                post.put("categories", selectedCategories);
-                post.put("timestamp", FieldValue.serverTimestamp());
-                post.put("reactions", new HashMap<String, Integer>());
-                post.put("userReactions", new HashMap<String, List<String>>());
-                post.put("commentCount", 0);
-                post.put("isAnonymous", isAnonymous);
-
-                if (imageUri != null) {
-                    StorageReference storageRef = FirebaseStorage.getInstance().getReference().child("post_images/" + System.currentTimeMillis() + ".jpg");
-                    storageRef.putFile(imageUri)
-                        .addOnSuccessListener(taskSnapshot ->
-                            storageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                                post.put("imageUrl", uri.toString());
-                                uploadPostToFirestore(post);
-                            }).addOnFailureListener(e -> {
-                                Toast.makeText(this, "Image upload failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                                Log.e(TAG, "Image upload getDownloadUrl failed", e);
-                            })
-                        )
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(this, "Image upload failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                            Log.e(TAG, "Image upload putFile failed", e);
-                        });
-                } else {
-                    uploadPostToFirestore(post);
-                }
+                publishPost(buildPost(userId, authorName, authorProfilePicture, content, selectedCategories, isAnonymous));
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading user profile", e);
                 // Continue with anonymous posting
                 boolean isAnonymous = anonymousCheckbox.isChecked();
-                Map<String, Object> post = new HashMap<>();
-                post.put("userId", userId);
-                post.put("authorName", "Anonymous");
-                post.put("authorProfilePicture", "");
-                post.put("content", content);
-                post.put("categories", selectedCategories);
-                post.put("timestamp", FieldValue.serverTimestamp());
-                post.put("reactions", new HashMap<String, Integer>());
-                post.put("userReactions", new HashMap<String, List<String>>());
-                post.put("commentCount", 0);
-                post.put("isAnonymous", isAnonymous);
+                publishPost(buildPost(userId, "Anonymous", "", content, selectedCategories, isAnonymous));
+            });
+    }
 
-                if (imageUri != null) {
-                    StorageReference storageRef = FirebaseStorage.getInstance().getReference().child("post_images/" + System.currentTimeMillis() + ".jpg");
-                    storageRef.putFile(imageUri)
-                        .addOnSuccessListener(taskSnapshot ->
-                            storageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                                post.put("imageUrl", uri.toString());
-                                uploadPostToFirestore(post);
-                            }).addOnFailureListener(e2 -> {
-                                Toast.makeText(this, "Image upload failed: " + e2.getMessage(), Toast.LENGTH_LONG).show();
-                                Log.e(TAG, "Image upload getDownloadUrl failed", e2);
-                            })
-                        )
-                        .addOnFailureListener(e2 -> {
-                            Toast.makeText(this, "Image upload failed: " + e2.getMessage(), Toast.LENGTH_LONG).show();
-                            Log.e(TAG, "Image upload putFile failed", e2);
-                        });
-                } else {
+    private Map<String, Object> buildPost(String userId, String authorName, String authorProfilePicture,
+                                          String content, List<String> categories, boolean isAnonymous) {
+        Map<String, Object> post = new HashMap<>();
+        post.put("userId", userId);
+        post.put("authorName", authorName);
+        post.put("authorProfilePicture", authorProfilePicture);
+        post.put("content", content);
+        post.put("categories", categories);
+        post.put("timestamp", FieldValue.serverTimestamp());
+        post.put("reactions", new HashMap<String, Integer>());
+        post.put("commentCount", 0);
+        post.put("isAnonymous", isAnonymous);
+        return post;
+    }
+
+    /**
+     * Upload the selected image, if any, through the shared image pipeline, then save the post
+     */
+    private void publishPost(Map<String, Object> post) {
+        if (imageUri == null) {
+            uploadPostToFirestore(post);
+            return;
+        }
+        
+        StorageReference storageRef = FirebaseStorage.getInstance().getReference().child("post_images/" + System.currentTimeMillis() + ".jpg");
+        postButton.setEnabled(false);
+        ImageUploader.getInstance(this).upload(imageUri, storageRef, ImageUploader.POST_IMAGE,
+            new ImageUploader.OnImageUploadListener() {
+                @Override
+                public void onProgress(int percent) {
+                    postButton.setText("Uploading " + percent + "%");
+                }
+
+                @Override
+                public void onSuccess(String downloadUrl, Map<String, String> variantUrls) {
+                    restorePostButton();
+                    post.put("imageUrl", downloadUrl);
+                    if (!variantUrls.isEmpty()) {
+                        post.put("imageVariants", variantUrls);
+                    }
                     uploadPostToFirestore(post);
                 }
+
+                @Override
+                public void onFailure(Exception e) {
+                    restorePostButton();
+                    Toast.makeText(PublicFeedActivity.this, "Image upload failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    Log.e(TAG, "Image upload failed", e);
+                }
             });
     }
 
+    private void restorePostButton() {
+        postButton.setEnabled(true);
+        postButton.setText("Post");
+    }
+
     private void uploadPostToFirestore(Map<String, Object> post) {
         Log.d(TAG, "Uploading post to Firestore: " + post.toString());
         String userId = (String) post.get("userId");
@@ -509,183 +531,175 @@ public class PublicFeedActivity extends AppCompatActivity {
         
         // Clear existing posts
         posts.clear();
-        postAdapter.notifyDataSetChanged();
-        
-        // Handle Friends Posts filter specially
-        if ("Friends Posts".equals(selectedFilter)) {
-            loadFriendsPosts();
-            return;
-        }
-        
-        // Build query for regular filters
-        Query query = db.collection("posts");
-        if (!selectedFilter.equals("All")) {
-            query = query.whereArrayContains("categories", selectedFilter);
+        postAdapter.notifyPostsChanged();
+        scrollTargetPagesLoaded = 0;
+        loadGeneration++;
+        showingCachedPage = false;
+        serverPageShown = false;
+        
+        // Start paging from the newest post for the selected filter
+        if (PostFeedPager.FILTER_FRIENDS.equals(selectedFilter)) {
+            Log.d(TAG, "Loading friends posts from timeline");
+        } else if (!selectedFilter.equals("All")) {
             Log.d(TAG, "Applying category filter: " + selectedFilter);
         } else {
             Log.d(TAG, "Loading all posts (no filter)");
         }
+        postFeedPager.reset(selectedFilter);
+        postFeedPager.loadNextPage();
+    }
 
-        Log.d(TAG, "Executing Firestore query...");
-        query.get().addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                QuerySnapshot result = task.getResult();
-                Log.d(TAG, "Query successful. Document count: " + (result != null ? result.size() : 0));
-                
-                if (result == null || result.isEmpty()) {
-                    Log.w(TAG, "No documents found in posts collection for filter: " + selectedFilter);
-                    String message = selectedFilter.equals("All") ? 
-                        "No posts found. Try creating one!" : 
-                        "No posts found for category '" + selectedFilter + "'. Try 'All' or create a post in this category.";
-                    Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    /**
+     * Load the next feed page when the user scrolls within one screen of the end
+     */
+    private void setupFeedPrefetch() {
+        if (feedScrollView == null) {
+            Log.w(TAG, "feedScrollView is null, infinite scroll disabled");
+            return;
+        }
+        
+        feedScrollView.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+            (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                if (scrollY <= oldScrollY) {
                     return;
                 }
-                
-                List<Post> tempPosts = new ArrayList<>();
-                int successCount = 0;
-                int errorCount = 0;
-                
-                for (QueryDocumentSnapshot doc : result) {
-                    try {
-                        Log.d(TAG, "Processing document: " + doc.getId());
-                        
-                        String postId = doc.getId();
-                        String content = doc.getString("content");
-                        List<String> cats = (List<String>) doc.get("categories");
-                        String imageUrl = doc.contains("imageUrl") ? doc.getString("imageUrl") : null;
-                        String userId = doc.getString("userId");
-                        String authorName = doc.getString("authorName");
-                        String authorProfilePicture = doc.getString("authorProfilePicture");
-                        
-                        // Debug: Log the categories for this post
-                        Log.d(TAG, "Post " + postId + " categories: " + (cats != null ? cats.toString() : "null"));
-                        
-                        // Handle timestamp - could be server timestamp (null) or long value
-                        long timestamp = System.currentTimeMillis();
-                        Object timestampObj = doc.get("timestamp");
-                        if (timestampObj instanceof com.google.firebase.Timestamp) {
-                            timestamp = ((com.google.firebase.Timestamp) timestampObj).getSeconds() * 1000;
-                        } else if (timestampObj instanceof Long) {
-                            timestamp = (Long) timestampObj;
-                        }
-                        
-                        // Validate required fields
-                        if (content == null || content.trim().isEmpty()) {
-                            Log.w(TAG, "Skipping post " + postId + " - empty content");
-                            continue;
-                        }
-                        
-                        // Handle backward compatibility for old posts
-                        if (authorName == null || authorName.isEmpty()) {
-                            authorName = "Anonymous";
-                        }
-                        if (authorProfilePicture == null) {
-                            authorProfilePicture = "";
-                        }
-                        if (cats == null) {
-                            cats = new ArrayList<>();
-                        }
-                        if (userId == null) {
-                            userId = "";
-                        }
-                        
-                        // Double-check filtering logic for debugging
-                        if (!selectedFilter.equals("All")) {
-                            if (cats.isEmpty() || !cats.contains(selectedFilter)) {
-                                Log.d(TAG, "Post " + postId + " filtered out - doesn't match category " + selectedFilter);
-                                continue;
-                            }
-                            Log.d(TAG, "Post " + postId + " matches filter " + selectedFilter);
-                        }
-                        
-                        Post post = new Post(postId, content, cats, imageUrl, userId, authorName, authorProfilePicture, timestamp);
-                        
-                        // Load anonymous flag with null check (backward compatibility)
-                        Boolean isAnonymous = doc.getBoolean("isAnonymous");
-                        post.isAnonymous = isAnonymous != null ? isAnonymous : false;
-                        
-                        // Load reactions with null checks
-                        Map<String, Object> reactions = (Map<String, Object>) doc.get("reactions");
-                        if (reactions != null) {
-                            for (Map.Entry<String, Object> entry : reactions.entrySet()) {
-                                if (entry.getValue() instanceof Long) {
-                                    post.reactions.put(entry.getKey(), ((Long) entry.getValue()).intValue());
-                                } else if (entry.getValue() instanceof Integer) {
-                                    post.reactions.put(entry.getKey(), (Integer) entry.getValue());
-                                }
-                            }
-                        }
-                        
-                        // Load user reactions with null checks
-                        Map<String, Object> userReactions = (Map<String, Object>) doc.get("userReactions");
-                        if (userReactions != null) {
-                            for (Map.Entry<String, Object> entry : userReactions.entrySet()) {
-                                if (entry.getValue() instanceof List) {
-                                    post.userReactions.put(entry.getKey(), (List<String>) entry.getValue());
-                                }
-                            }
-                        }
-                        
-                        // Load comment count with null check
-                        Long commentCountLong = doc.getLong("commentCount");
-                        post.commentCount = commentCountLong != null ? commentCountLong.intValue() : 0;
-                        
-                        tempPosts.add(post);
-                        successCount++;
-                        
-                        Log.d(TAG, "Successfully loaded post: " + postId + " - " + content.substring(0, Math.min(content.length(), 50)));
-                        
-                    } catch (Exception e) {
-                        errorCount++;
-                        Log.e(TAG, "Error parsing post " + doc.getId() + ": " + e.getMessage(), e);
-                        // Continue with next post instead of crashing
-                    }
+                View content = v.getChildAt(0);
+                if (content == null) {
+                    return;
                 }
-                
-                Log.d(TAG, "Post processing complete. Success: " + successCount + ", Errors: " + errorCount + ", Filter: " + selectedFilter);
-                
-                // Sort posts by timestamp (newest first)
-                tempPosts.sort((p1, p2) -> Long.compare(p2.timestamp, p1.timestamp));
-                posts.addAll(tempPosts);
-                
-                Log.d(TAG, "Total posts loaded and added to list: " + posts.size());
-                
-                // Update UI on main thread
-                runOnUiThread(() -> {
-                    postAdapter.notifyDataSetChanged();
-                    Log.d(TAG, "UI updated - postAdapter.notifyDataSetChanged() called");
-                    
-                    // Handle scroll to specific post if requested
-                    if (scrollToPostId != null) {
-                        scrollToPost(scrollToPostId);
-                    }
-                    
-                    if (posts.isEmpty()) {
-                        String message = selectedFilter.equals("All") ? 
-                            "No posts to display. Try creating one!" : 
-                            "No posts found for '" + selectedFilter + "'. Try 'All' or create a post in this category.";
-                        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-                    }
-                    // Remove the "loaded X posts" toast message as requested
-                });
-                
-            } else {
-                Exception exception = task.getException();
-                Log.e(TAG, "Error loading posts: " + (exception != null ? exception.getMessage() : "Unknown error"), exception);
-                
-                // Show detailed error to user
-                String errorMessage = "Error loading posts: ";
-                if (exception != null) {
-                    errorMessage += exception.getMessage();
-                } else {
-                    errorMessage += "Unknown error occurred";
+                int distanceToEnd = content.getMeasuredHeight() - (scrollY + v.getHeight());
+                if (distanceToEnd <= v.getHeight() && postFeedPager.hasMore() && !postFeedPager.isLoading()) {
+                    Log.d(TAG, "Near end of feed, prefetching next page");
+                    postFeedPager.loadNextPage();
                 }
-                
-                Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
+            });
+    }
+
+    private void onFeedPageLoaded(List<DocumentSnapshot> docs, boolean firstPage, boolean hasMore) {
+        Log.d(TAG, "Feed page loaded. Document count: " + docs.size());
+
+        if (firstPage && docs.isEmpty() && showingCachedPage) {
+            // Everything in the cache has since been deleted
+            showingCachedPage = false;
+            posts.clear();
+            postAdapter.notifyPostsChanged();
+        }
+
+        if (firstPage && docs.isEmpty()) {
+            serverPageShown = true;
+            postFeedPager.pageApplied();
+            Log.w(TAG, "No documents found in posts collection for filter: " + selectedFilter);
+            String message;
+            if (selectedFilter.equals("All")) {
+                message = "No posts found. Try creating one!";
+            } else if (PostFeedPager.FILTER_FRIENDS.equals(selectedFilter)) {
+                message = "No posts from friends found";
+            } else {
+                message = "No posts found for category '" + selectedFilter + "'. Try 'All' or create a post in this category.";
             }
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        final int requestGeneration = loadGeneration;
+        decodeWithUserReactions(docs, decodedPosts -> {
+            if (requestGeneration != loadGeneration || isDestroyed()) {
+                Log.d(TAG, "Dropping decoded page for previous filter");
+                return;
+            }
+            onFeedPageDecoded(decodedPosts, firstPage, hasMore);
         });
     }
 
+    /**
+     * Decode posts and mark the ones the current user has reacted to before handing them over
+     */
+    private void decodeWithUserReactions(List<DocumentSnapshot> docs, PostDecoder.OnPostsDecodedListener listener) {
+        String userId = FirebaseAuth.getInstance().getCurrentUser() != null ?
+            FirebaseAuth.getInstance().getCurrentUser().getUid() : null;
+        PostDecoder.decodeAsync(docs, decodedPosts ->
+            PostCounters.loadUserReactions(db, userId, decodedPosts, () -> listener.onPostsDecoded(decodedPosts)));
+    }
+
+    /**
+     * Show the cached first page right away; it is replaced when the server page arrives
+     */
+    private void onFeedCachedPageLoaded(List<DocumentSnapshot> docs) {
+        final int requestGeneration = loadGeneration;
+        PostDecoder.decodeAsync(docs, decodedPosts -> {
+            if (requestGeneration != loadGeneration || isDestroyed() || serverPageShown) {
+                return;
+            }
+            posts.addAll(decodedPosts);
+            postAdapter.notifyPostsChanged();
+            showingCachedPage = true;
+            Log.d(TAG, "Rendered " + decodedPosts.size() + " cached posts");
+        });
+    }
+
+    private void onFeedPageDecoded(List<Post> tempPosts, boolean firstPage, boolean hasMore) {
+        Log.d(TAG, "Page processing complete. Posts: " + tempPosts.size() + ", Filter: " + selectedFilter);
+        
+        if (firstPage && showingCachedPage) {
+            // Swap the cached first page for the fresh server copy
+            showingCachedPage = false;
+            posts.clear();
+        }
+        // Pages arrive newest first from Firestore, and one at a time, so they can be appended as-is
+        posts.addAll(tempPosts);
+        serverPageShown = true;
+        postFeedPager.pageApplied();
+        
+        Log.d(TAG, "Total posts loaded and added to list: " + posts.size());
+        
+        // Handle scroll to specific post if requested, once the diff has been applied to the list
+        if (scrollToPostId != null && containsPost(scrollToPostId)) {
+            String targetPostId = scrollToPostId;
+            scrollToPostId = null;
+            postAdapter.notifyPostsChanged(() -> scrollToPost(targetPostId));
+        } else {
+            postAdapter.notifyPostsChanged();
+            
+            // The post may be older than the loaded pages - keep paging for a little while
+            if (scrollToPostId != null && hasMore && ++scrollTargetPagesLoaded < MAX_SCROLL_TARGET_PAGES) {
+                postFeedPager.loadNextPage();
+                return;
+            }
+        }
+        
+        // A page made up only of skipped posts would otherwise stall the scroll trigger
+        if (tempPosts.isEmpty() && hasMore) {
+            postFeedPager.loadNextPage();
+            return;
+        }
+        
+        if (posts.isEmpty()) {
+            String message = selectedFilter.equals("All") ? 
+                "No posts to display. Try creating one!" : 
+                "No posts found for '" + selectedFilter + "'. Try 'All' or create a post in this category.";
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void onFeedPageError(Exception exception, boolean firstPage) {
+        Log.e(TAG, "Error loading posts: " + (exception != null ? exception.getMessage() : "Unknown error"), exception);
+        
+        // Only surface errors for the first page, later pages are retried on the next scroll
+        if (!firstPage) {
+            return;
+        }
+        
+        // Show detailed error to user
+        String errorMessage = "Error loading posts: ";
+        if (exception != null) {
+            errorMessage += exception.getMessage();
+        } else {
+            errorMessage += "Unknown error occurred";
+        }
+        
+        Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
+    }
+
     private void showCrisisDialog() {
         String country = Locale.getDefault().getCountry();
         String messageUK = "Immediate help (UK):\n\n" +
@@ -772,6 +786,15 @@ public class PublicFeedActivity extends AppCompatActivity {
         }
     }
 
+    private boolean containsPost(String postId) {
+        for (Post post : posts) {
+            if (postId.equals(post.postId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Scroll to a specific post by ID (for notification navigation)
      */
@@ -869,232 +892,4 @@ public class PublicFeedActivity extends AppCompatActivity {
         // Show a toast to confirm the post was found
         Toast.makeText(this, "Navigated to your post", Toast.LENGTH_SHORT).show();
     }
-    
-    /**
-     * Load posts from user's friends only
-     */
-    private void loadFriendsPosts() {
-        Log.d(TAG, "Loading friends posts");
-        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
-        if (currentUser == null) {
-            Log.e(TAG, "No current user for friends posts");
-            return;
-        }
-        
-        String currentUserId = currentUser.getUid();
-        
-        // First, get the list of friends
-        db.collection("friends")
-            .whereEqualTo("status", "accepted")
-            .get()
-            .addOnSuccessListener(friendsSnapshot -> {
-                List<String> friendIds = new ArrayList<>();
-                friendIds.add(currentUserId); // Include current user's posts too
-                
-                for (QueryDocumentSnapshot friendDoc : friendsSnapshot) {
-                    String userId1 = friendDoc.getString("userId1");
-                    String userId2 = friendDoc.getString("userId2");
-                    
-                    // Add the friend's ID (the one that's not the current user)
-                    if (currentUserId.equals(userId1)) {
-                        friendIds.add(userId2);
-                    } else if (currentUserId.equals(userId2)) {
-                        friendIds.add(userId1);
-                    }
-                }
-                
-                Log.d(TAG, "Found " + friendIds.size() + " friends (including self)");
-                
-                if (friendIds.isEmpty()) {
-                    Log.w(TAG, "No friends found");
-                    Toast.makeText(this, "No posts from friends found", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Due to Firestore limitations, we can only use 'in' operator with up to 10 values
-                // If more than 10 friends, we'll need to make multiple queries
-                if (friendIds.size() <= 10) {
-                    // Single query for 10 or fewer friends
-                    loadPostsForFriends(friendIds);
-                } else {
-                    // Multiple queries for more than 10 friends
-                    loadPostsForManyFriends(friendIds);
-                }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading friends", e);
-                Toast.makeText(this, "Error loading friends posts", Toast.LENGTH_SHORT).show();
-            });
-    }
-    
-    /**
-     * Load posts for 10 or fewer friends using a single query
-     */
-    private void loadPostsForFriends(List<String> friendIds) {
-        db.collection("posts")
-            .whereIn("userId", friendIds)
-            .orderBy("timestamp", Query.Direction.DESCENDING)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                processFriendsPostsResult(querySnapshot);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading friends posts", e);
-                Toast.makeText(this, "Error loading friends posts", Toast.LENGTH_SHORT).show();
-            });
-    }
-    
-    /**
-     * Load posts for more than 10 friends using multiple queries
-     */
-    private void loadPostsForManyFriends(List<String> friendIds) {
-        Log.d(TAG, "Loading posts for " + friendIds.size() + " friends using multiple queries");
-        
-        // Split friend IDs into chunks of 10
-        List<List<String>> chunks = new ArrayList<>();
-        for (int i = 0; i < friendIds.size(); i += 10) {
-            chunks.add(friendIds.subList(i, Math.min(friendIds.size(), i + 10)));
-        }
-        
-        List<QuerySnapshot> allResults = new ArrayList<>();
-        final int[] completedQueries = {0};
-        
-        for (List<String> chunk : chunks) {
-            db.collection("posts")
-                .whereIn("userId", chunk)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    allResults.add(querySnapshot);
-                    completedQueries[0]++;
-                    
-                    // When all queries are complete, process results
-                    if (completedQueries[0] == chunks.size()) {
-                        // Combine all results
-                        List<DocumentSnapshot> allDocs = new ArrayList<>();
-                        for (QuerySnapshot result : allResults) {
-                            allDocs.addAll(result.getDocuments());
-                        }
-                        
-                        // Sort by timestamp (newest first)
-                        allDocs.sort((doc1, doc2) -> {
-                            Timestamp ts1 = doc1.getTimestamp("timestamp");
-                            Timestamp ts2 = doc2.getTimestamp("timestamp");
-                            if (ts1 == null && ts2 == null) return 0;
-                            if (ts1 == null) return 1;
-                            if (ts2 == null) return -1;
-                            return ts2.compareTo(ts1); // Descending order
-                        });
-                        
-                        // Process the sorted results
-                        processFriendsPostsFromDocs(allDocs);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error in chunk query", e);
-                    completedQueries[0]++;
-                    
-                    // Still try to process if we have partial results
-                    if (completedQueries[0] == chunks.size()) {
-                        List<DocumentSnapshot> allDocs = new ArrayList<>();
-                        for (QuerySnapshot result : allResults) {
-                            allDocs.addAll(result.getDocuments());
-                        }
-                        processFriendsPostsFromDocs(allDocs);
-                    }
-                });
-        }
-    }
-    
-    /**
-     * Process friends posts from QuerySnapshot
-     */
-    private void processFriendsPostsResult(QuerySnapshot querySnapshot) {
-        if (querySnapshot != null) {
-            processFriendsPostsFromDocs(querySnapshot.getDocuments());
-        }
-    }
-    
-    /**
-     * Process friends posts from a list of documents
-     */
-    private void processFriendsPostsFromDocs(List<DocumentSnapshot> docs) {
-        Log.d(TAG, "Processing " + docs.size() + " friends posts");
-        
-        if (docs.isEmpty()) {
-            Log.w(TAG, "No posts found from friends");
-            Toast.makeText(this, "No posts from friends found", Toast.LENGTH_SHORT).show();
-            return;
-        }
-        
-        for (DocumentSnapshot doc : docs) {
-            String postId = doc.getId();
-            String content = doc.getString("content");
-            String imageUrl = doc.getString("imageUrl");
-            String userId = doc.getString("userId");
-            String authorName = doc.getString("authorName");
-            String authorProfilePicture = doc.getString("authorProfilePicture");
-            Timestamp timestamp = doc.getTimestamp("timestamp");
-            List<String> cats = (List<String>) doc.get("categories");
-            
-            // Apply null checks
-            if (content == null) content = "";
-            if (imageUrl == null) imageUrl = "";
-            if (authorName == null) authorName = "Anonymous";
-            if (authorProfilePicture == null) authorProfilePicture = "";
-            if (cats == null) cats = new ArrayList<>();
-            if (userId == null) userId = "";
-            
-            // Convert Timestamp to long for Post constructor
-            long timestampMillis = timestamp != null ? timestamp.toDate().getTime() : System.currentTimeMillis();
-            
-            Post post = new Post(postId, content, cats, imageUrl, userId, authorName, authorProfilePicture, timestampMillis);
-            
-            // Load additional post data (same as regular loadPosts)
-            Boolean isAnonymous = doc.getBoolean("isAnonymous");
-            post.isAnonymous = isAnonymous != null ? isAnonymous : false;
-            
-            // Load reactions
-            Map<String, Object> reactions = (Map<String, Object>) doc.get("reactions");
-            if (reactions != null) {
-                for (Map.Entry<String, Object> entry : reactions.entrySet()) {
-                    if (entry.getValue() instanceof Long) {
-                        post.reactions.put(entry.getKey(), ((Long) entry.getValue()).intValue());
-                    } else if (entry.getValue() instanceof Integer) {
-                        post.reactions.put(entry.getKey(), (Integer) entry.getValue());
-                    }
-                }
-            }
-            
-            // Load user reactions
-            Map<String, Object> userReactions = (Map<String, Object>) doc.get("userReactions");
-            if (userReactions != null) {
-                for (Map.Entry<String, Object> entry : userReactions.entrySet()) {
-                    if (entry.getValue() instanceof List) {
-                        post.userReactions.put(entry.getKey(), (List<String>) entry.getValue());
-                    }
-                }
-            }
-            
-            // Load comment count
-            Long commentCountLong = doc.getLong("commentCount");
-            post.commentCount = commentCountLong != null ? commentCountLong.intValue() : 0;
-            
-            posts.add(post);
-        }
-        
-        // Sort posts by timestamp (newest first) - shouldn't be needed due to Firestore ordering, but just in case
-        posts.sort((p1, p2) -> {
-            return Long.compare(p2.timestamp, p1.timestamp); // Descending order (newest first)
-        });
-        
-        Log.d(TAG, "Loaded " + posts.size() + " friends posts successfully");
-        postAdapter.notifyDataSetChanged();
-        
-        // Check if we need to scroll to a specific post
-        if (scrollToPostId != null) {
-            scrollToPost(scrollToPostId);
-        }
-        
-        Toast.makeText(this, "Loaded " + posts.size() + " posts from friends", Toast.LENGTH_SHORT).show();
-    }
 }
@@ -0,0 +1,219 @@
+package com.rayseal.supportapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalesces a user's reaction taps into as few Firestore writes as possible.
+ * Each tap is applied to the local Post straight away (optimistic UI), and the write is
+ * debounced per post. When the debounce fires, only the difference between what the server
+ * has and what the user ended up with is committed, in one batch. Tapping a reaction on and
+ * off quickly therefore writes nothing at all. Writes for the same post are also spaced at
+ * least MIN_COMMIT_INTERVAL_MS apart, and a reaction notification goes out at most once per
+ * post per session.
+ * Must be used from the main thread.
+ */
+public class ReactionWriteCoalescer {
+    private static final String TAG = "ReactionWriteCoalescer";
+    static final long DEBOUNCE_MS = 600;
+    static final long MIN_COMMIT_INTERVAL_MS = 2000;
+
+    private final FirebaseFirestore db;
+    private final String userId;
+    private final OnReactionCommitListener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, PendingReaction> pending = new HashMap<>();
+    private final Map<String, Long> lastCommitTimes = new HashMap<>();
+    private final Set<String> notifiedPostIds = new HashSet<>();
+
+    public ReactionWriteCoalescer(FirebaseFirestore db, String userId, OnReactionCommitListener listener) {
+        this.db = db;
+        this.userId = userId;
+        this.listener = listener;
+    }
+
+    /**
+     * Toggle the user's reaction on a post. A user holds at most one reaction per post,
+     * so picking a different type moves the reaction. The post is updated locally at once.
+     */
+    public void toggle(Post post, String reactionType) {
+        if (post.postId == null || userId == null || userId.isEmpty()) {
+            return;
+        }
+
+        String current = getUserReaction(post, userId);
+        String desired = reactionType.equals(current) ? null : reactionType;
+        applyLocally(post, userId, current, desired);
+
+        PendingReaction entry = pending.get(post.postId);
+        if (entry == null) {
+            // The state before the first tap is what the server has
+            entry = new PendingReaction(post, current);
+            pending.put(post.postId, entry);
+        }
+        entry.post = post;
+        entry.desired = desired;
+        schedule(entry, DEBOUNCE_MS);
+    }
+
+    /**
+     * Commit everything that is waiting now, e.g. when the feed goes away
+     */
+    public void flush() {
+        for (PendingReaction entry : new ArrayList<>(pending.values())) {
+            handler.removeCallbacks(entry.commitRunnable);
+            commit(entry);
+        }
+    }
+
+    private void schedule(PendingReaction entry, long delayMs) {
+        handler.removeCallbacks(entry.commitRunnable);
+        handler.postDelayed(entry.commitRunnable, delayMs);
+    }
+
+    private void commit(PendingReaction entry) {
+        if (entry.inFlight) {
+            // Picked up again once the current write finishes
+            return;
+        }
+
+        String from = entry.committed;
+        String to = entry.desired;
+        if (from == null ? to == null : from.equals(to)) {
+            Log.d(TAG, "Reaction toggles on post " + entry.post.postId + " cancelled out, nothing to write");
+            pending.remove(entry.post.postId);
+            return;
+        }
+
+        Long lastCommit = lastCommitTimes.get(entry.post.postId);
+        long sinceLastCommit = lastCommit != null ? System.currentTimeMillis() - lastCommit : Long.MAX_VALUE;
+        if (sinceLastCommit < MIN_COMMIT_INTERVAL_MS) {
+            schedule(entry, MIN_COMMIT_INTERVAL_MS - sinceLastCommit);
+            return;
+        }
+
+        entry.inFlight = true;
+        lastCommitTimes.put(entry.post.postId, System.currentTimeMillis());
+
+        // Membership document plus sharded count changes; the post document itself isn't written
+        WriteBatch batch = db.batch();
+        PostCounters.setUserReaction(batch, db, entry.post.postId, userId, to);
+        if (from != null) {
+            PostCounters.incrementReaction(batch, db, entry.post.postId, from, -1);
+        }
+        if (to != null) {
+            PostCounters.incrementReaction(batch, db, entry.post.postId, to, 1);
+        }
+
+        Log.d(TAG, "Committing reaction on post " + entry.post.postId + ": " + from + " -> " + to);
+        batch.commit()
+            .addOnSuccessListener(aVoid -> {
+                entry.inFlight = false;
+                entry.committed = to;
+                if (to != null && notifiedPostIds.add(entry.post.postId)) {
+                    listener.onReactionAdded(entry.post, to);
+                }
+                finishOrReschedule(entry);
+            })
+            .addOnFailureListener(e -> {
+                entry.inFlight = false;
+                Log.e(TAG, "Failed to save reaction on post " + entry.post.postId, e);
+                // Roll the local post back to what the server has
+                applyLocally(entry.post, userId, entry.desired, entry.committed);
+                entry.desired = entry.committed;
+                pending.remove(entry.post.postId);
+                listener.onReactionReverted(entry.post, e);
+            });
+    }
+
+    private void finishOrReschedule(PendingReaction entry) {
+        String committed = entry.committed;
+        String desired = entry.desired;
+        if (committed == null ? desired == null : committed.equals(desired)) {
+            pending.remove(entry.post.postId);
+        } else {
+            // The user tapped again while the write was in flight
+            schedule(entry, DEBOUNCE_MS);
+        }
+    }
+
+    /**
+     * The reaction type the user currently holds on the post, or null
+     */
+    static String getUserReaction(Post post, String userId) {
+        if (post.userReactions == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : post.userReactions.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().contains(userId)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Move the user's reaction on the local post from one type to another (either may be null)
+     */
+    static void applyLocally(Post post, String userId, String from, String to) {
+        if (post.userReactions == null) post.userReactions = new HashMap<>();
+        if (post.reactions == null) post.reactions = new HashMap<>();
+
+        if (from != null) {
+            List<String> users = post.userReactions.get(from);
+            if (users != null) {
+                users.remove(userId);
+            }
+            Integer count = post.reactions.get(from);
+            post.reactions.put(from, Math.max(0, (count != null ? count : 0) - 1));
+        }
+        if (to != null) {
+            applyMembership(post, userId, to);
+            Integer count = post.reactions.get(to);
+            post.reactions.put(to, (count != null ? count : 0) + 1);
+        }
+    }
+
+    /**
+     * Record on the local post that the user holds a reaction, without touching counts
+     */
+    static void applyMembership(Post post, String userId, String reactionType) {
+        if (post.userReactions == null) post.userReactions = new HashMap<>();
+        List<String> users = post.userReactions.get(reactionType);
+        if (users == null) {
+            users = new ArrayList<>();
+            post.userReactions.put(reactionType, users);
+        }
+        if (!users.contains(userId)) {
+            users.add(userId);
+        }
+    }
+
+    private class PendingReaction {
+        Post post;
+        String committed; // What the server has
+        String desired;   // What the user last picked
+        boolean inFlight = false;
+        final Runnable commitRunnable = () -> commit(this);
+
+        PendingReaction(Post post, String committed) {
+            this.post = post;
+            this.committed = committed;
+            this.desired = committed;
+        }
+    }
+
+    public interface OnReactionCommitListener {
+        void onReactionAdded(Post post, String reactionType);
+        void onReactionReverted(Post post, Exception e);
+    }
+}
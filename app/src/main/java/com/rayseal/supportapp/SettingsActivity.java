@@ -15,8 +15,10 @@ import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import java.util.Map;
 
 public class SettingsActivity extends AppCompatActivity {
     
@@ -196,7 +198,7 @@ public class SettingsActivity extends AppCompatActivity {
             uploadProfilePicture(displayName, bio);
         } else {
             // Save profile without changing picture
-            updateProfile(displayName, bio, null);
+            updateProfile(displayName, bio, null, null);
         }
     }
 
@@ -204,19 +206,29 @@ public class SettingsActivity extends AppCompatActivity {
         StorageReference storageRef = FirebaseStorage.getInstance().getReference()
             .child("profile_pictures/" + currentUserId + ".jpg");
         
-        storageRef.putFile(selectedImageUri)
-            .addOnSuccessListener(taskSnapshot -> 
-                storageRef.getDownloadUrl().addOnSuccessListener(uri -> 
-                    updateProfile(displayName, bio, uri.toString())
-                )
-            )
-            .addOnFailureListener(e -> {
-                Toast.makeText(this, "Failed to upload profile picture", Toast.LENGTH_SHORT).show();
-                resetSaveButton();
+        ImageUploader.getInstance(this).upload(selectedImageUri, storageRef, ImageUploader.PROFILE_PICTURE,
+            new ImageUploader.OnImageUploadListener() {
+                @Override
+                public void onProgress(int percent) {
+                    saveProfileButton.setText("Uploading " + percent + "%");
+                }
+
+                @Override
+                public void onSuccess(String downloadUrl, Map<String, String> variantUrls) {
+                    saveProfileButton.setText("Saving...");
+                    updateProfile(displayName, bio, downloadUrl, variantUrls);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    Toast.makeText(SettingsActivity.this, "Failed to upload profile picture", Toast.LENGTH_SHORT).show();
+                    resetSaveButton();
+                }
             });
     }
 
-    private void updateProfile(String displayName, String bio, String profilePictureUrl) {
+    private void updateProfile(String displayName, String bio, String profilePictureUrl,
+                               Map<String, String> profilePictureVariants) {
         // Get current profile first to preserve other fields
         db.collection("profiles").document(currentUserId).get()
             .addOnSuccessListener(document -> {
@@ -235,6 +247,7 @@ public class SettingsActivity extends AppCompatActivity {
                 profile.bio = bio;
                 if (profilePictureUrl != null) {
                     profile.profilePictureUrl = profilePictureUrl;
+                    profile.profilePictureVariants = profilePictureVariants;
                 }
                 profile.hidePostsFromFriends = hidePostsFromFriendsSwitch.isChecked();
                 profile.isPrivate = privateProfileSwitch.isChecked();
@@ -257,7 +270,7 @@ public class SettingsActivity extends AppCompatActivity {
                 
                 // Save updated profile
                 db.collection("profiles").document(currentUserId)
-                    .set(profile)
+                    .set(profile, SetOptions.merge())
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(this, "Profile updated successfully", Toast.LENGTH_SHORT).show();
                         resetSaveButton();
@@ -289,9 +302,12 @@ public class SettingsActivity extends AppCompatActivity {
     }
 
     private void logout() {
+        // Drop unsent chat messages so they aren't sent, or kept, for the next user
+        ChatOutbox.getInstance(this).clear();
         auth.signOut();
         
-        // Clear any cached data if needed
+        // Drop the cached profile so the next user doesn't inherit it
+        CurrentUserProfileCache.getInstance().clear();
         
         // Navigate to main activity
         Intent intent = new Intent(this, MainActivity.class);
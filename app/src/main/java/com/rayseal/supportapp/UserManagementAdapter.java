@@ -53,7 +53,7 @@ public class UserManagementAdapter extends RecyclerView.Adapter<UserManagementAd
         // Set user profile image
         if (user.profilePictureUrl != null && !user.profilePictureUrl.isEmpty()) {
             Glide.with(context)
-                    .load(user.profilePictureUrl)
+                    .load(ImageVariants.avatar(context, user))
                     .circleCrop()
                     .placeholder(R.drawable.default_profile_pic)
                     .into(holder.profileImage);
@@ -0,0 +1,142 @@
+package com.rayseal.supportapp;
+
+import android.os.SystemClock;
+import android.util.Log;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive user search backed by the searchTokens index on profiles.
+ * The updateProfileSearchTokens Cloud Function stores every substring of each name word and
+ * every prefix of each whole name (the actual name only when privacy.showActualName is on), so a single array-contains query answers both prefix
+ * ("jo" finds "John") and infix ("ohn" finds "John") searches. Results are ordered by name
+ * and paged with startAfter cursors. First pages of recent queries are cached for a short
+ * while, so retyping or backspacing over a query doesn't read it again.
+ * Must be used from the main thread.
+ */
+public class UserSearch {
+    private static final String TAG = "UserSearch";
+    public static final int PAGE_SIZE = 20;
+    // Must match the limits in functions/index.js
+    private static final int MAX_WORD_LENGTH = 20;
+    private static final int MAX_PREFIX_LENGTH = 30;
+    private static final int MAX_CACHED_QUERIES = 50;
+    private static final long CACHE_TTL_MS = 60 * 1000;
+
+    // First page of recent queries by index token, least recently used first
+    private static final Map<String, CachedPage> firstPages =
+        new LinkedHashMap<String, CachedPage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > MAX_CACHED_QUERIES;
+            }
+        };
+
+    private UserSearch() {}
+
+    /**
+     * Lowercase, strip accents and collapse everything that isn't a letter or digit to single spaces.
+     * Must match normalizeSearchText in functions/index.js.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT)
+            .replaceAll("[^\\p{L}\\p{N}]+", " ")
+            .trim();
+    }
+
+    /**
+     * The index token to look a query up by, or an empty string if the query has nothing searchable
+     */
+    public static String tokenFor(String query) {
+        String normalized = normalize(query);
+        if (normalized.contains(" ")) {
+            // Several words: matched against prefixes of the whole name
+            return normalized.length() > MAX_PREFIX_LENGTH ? normalized.substring(0, MAX_PREFIX_LENGTH) : normalized;
+        }
+        return normalized.length() > MAX_WORD_LENGTH ? normalized.substring(0, MAX_WORD_LENGTH) : normalized;
+    }
+
+    /**
+     * Load one page of matches. Pass the cursor from the previous page to continue, or null to start.
+     */
+    public static void searchPage(FirebaseFirestore db, String query, DocumentSnapshot startAfter,
+                                  OnSearchPageListener listener) {
+        String token = tokenFor(query);
+        if (token.isEmpty()) {
+            listener.onSearchPage(new ArrayList<>(), null);
+            return;
+        }
+        if (startAfter == null) {
+            CachedPage cached = firstPages.get(token);
+            if (cached != null && SystemClock.elapsedRealtime() - cached.loadedAt <= CACHE_TTL_MS) {
+                listener.onSearchPage(new ArrayList<>(cached.profiles), cached.nextCursor);
+                return;
+            }
+        }
+
+        Query search = db.collection("profiles")
+            .whereArrayContains("searchTokens", token)
+            .orderBy("searchName");
+        if (startAfter != null) {
+            search = search.startAfter(startAfter);
+        }
+
+        search.limit(PAGE_SIZE).get()
+            .addOnSuccessListener(querySnapshot -> {
+                List<Profile> profiles = new ArrayList<>();
+                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                    try {
+                        Profile profile = doc.toObject(Profile.class);
+                        if (profile != null) {
+                            if (profile.uid == null || profile.uid.isEmpty()) {
+                                profile.uid = doc.getId();
+                            }
+                            profiles.add(profile);
+                        }
+                    } catch (Exception e) {
+                        // Skip individual profile that fails to parse
+                        Log.w(TAG, "Failed to parse profile " + doc.getId() + ": " + e.getMessage());
+                    }
+                }
+
+                List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                DocumentSnapshot nextCursor = docs.size() < PAGE_SIZE ? null : docs.get(docs.size() - 1);
+                if (startAfter == null) {
+                    firstPages.put(token, new CachedPage(profiles, nextCursor));
+                }
+                listener.onSearchPage(new ArrayList<>(profiles), nextCursor);
+            })
+            .addOnFailureListener(listener::onSearchError);
+    }
+
+    private static class CachedPage {
+        final List<Profile> profiles;
+        final DocumentSnapshot nextCursor;
+        final long loadedAt = SystemClock.elapsedRealtime();
+
+        CachedPage(List<Profile> profiles, DocumentSnapshot nextCursor) {
+            this.profiles = profiles;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    public interface OnSearchPageListener {
+        /**
+         * nextCursor is null when there are no more results
+         */
+        void onSearchPage(List<Profile> profiles, DocumentSnapshot nextCursor);
+        void onSearchError(Exception e);
+    }
+}
@@ -0,0 +1,117 @@
+package com.rayseal.supportapp;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares KeywordMatcher with the String.contains loop ModerationUtils.analyzeContent used before,
+ * for lexicons of the built-in size up to thousands of terms.
+ * Run main() from the IDE with the app's unit test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+
+    // Same lists as ModerationUtils
+    private static final List<String> PROFANITY_WORDS = Arrays.asList(
+        "damn", "hell", "crap", "shit", "fuck", "bitch", "ass", "asshole");
+    private static final List<String> HATE_SPEECH_WORDS = Arrays.asList(
+        "hate", "kill yourself", "kys", "die", "suicide", "retard", "stupid", "idiot");
+    private static final List<String> HARASSMENT_WORDS = Arrays.asList(
+        "stalker", "creep", "ugly", "fat", "loser", "worthless", "pathetic");
+
+    private static final String POST = "Had a rough week at work but my class went well and I finally "
+        + "talked to my counselor about the stress. Some days I feel like a loser, but my friends keep "
+        + "reminding me that asking for help is not pathetic. Thanks everyone in this group for listening, "
+        + "it really helps to know I am not the only one going through this.";
+
+    @Param({"0", "1000", "5000"})
+    public int extraTermsPerCategory;
+
+    private Map<String, Set<String>> lexicon;
+    private KeywordMatcher matcher;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lexicon = new LinkedHashMap<>();
+        lexicon.put("profanity", withExtraTerms(PROFANITY_WORDS, random));
+        lexicon.put("hate_speech", withExtraTerms(HATE_SPEECH_WORDS, random));
+        lexicon.put("harassment", withExtraTerms(HARASSMENT_WORDS, random));
+        matcher = new KeywordMatcher(lexicon);
+        text = POST + " " + POST;
+    }
+
+    private Set<String> withExtraTerms(List<String> words, Random random) {
+        Set<String> terms = new HashSet<>(words);
+        while (terms.size() < words.size() + extraTermsPerCategory) {
+            int length = 4 + random.nextInt(6);
+            StringBuilder term = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                term.append((char) ('a' + random.nextInt(26)));
+            }
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> automaton() {
+        return matcher.findAll(text);
+    }
+
+    /**
+     * The previous implementation: lowercase once, then one contains() per term
+     */
+    @Benchmark
+    public Map<String, Set<String>> containsLoop() {
+        String lowerContent = text.toLowerCase();
+        Map<String, Set<String>> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> category : lexicon.entrySet()) {
+            for (String word : category.getValue()) {
+                if (lowerContent.contains(word)) {
+                    Set<String> words = matches.get(category.getKey());
+                    if (words == null) {
+                        words = new HashSet<>();
+                        matches.put(category.getKey(), words);
+                    }
+                    words.add(word);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(KeywordMatcherBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.rayseal.supportapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class KeywordMatcherTest {
+
+    private static KeywordMatcher matcher(String... categoriesAndTerms) {
+        Map<String, List<String>> lexicon = new LinkedHashMap<>();
+        for (String entry : categoriesAndTerms) {
+            String[] parts = entry.split(":", 2);
+            lexicon.put(parts[0], Arrays.asList(parts[1].split(",")));
+        }
+        return new KeywordMatcher(lexicon);
+    }
+
+    @Test
+    public void doesNotMatchInsideWords() {
+        KeywordMatcher matcher = matcher("profanity:ass,hell");
+
+        assertTrue(matcher.findAll("This class will assess the shell").isEmpty());
+        assertTrue(matcher.findAll("hello, passing classes").isEmpty());
+    }
+
+    @Test
+    public void matchesWholeWordsAtAnyPosition() {
+        KeywordMatcher matcher = matcher("profanity:ass");
+
+        assertTrue(matcher.findAll("ass").containsKey("profanity"));
+        assertTrue(matcher.findAll("ass at the start").containsKey("profanity"));
+        assertTrue(matcher.findAll("what an ass").containsKey("profanity"));
+        assertTrue(matcher.findAll("what an ass!").containsKey("profanity"));
+        assertTrue(matcher.findAll("(ass)").containsKey("profanity"));
+        assertFalse(matcher.findAll("ass_hat").containsKey("profanity"));
+    }
+
+    @Test
+    public void isCaseInsensitive() {
+        KeywordMatcher matcher = matcher("harassment:Loser");
+
+        assertEquals(setOf("loser"), matcher.findAll("You LOSER").get("harassment"));
+    }
+
+    @Test
+    public void reportsOverlappingTerms() {
+        KeywordMatcher matcher = matcher("hate_speech:kill,kill yourself,yourself");
+
+        Set<String> words = matcher.findAll("just kill yourself").get("hate_speech");
+        assertEquals(setOf("kill", "kill yourself", "yourself"), words);
+    }
+
+    @Test
+    public void reportsTermsThatEndInsideALongerTerm() {
+        // "he" is a suffix of "she" and the prefix of "hell"; only whole words count
+        KeywordMatcher matcher = matcher("profanity:she,he,hell");
+
+        assertEquals(setOf("hell"), matcher.findAll("go to hell").get("profanity"));
+        assertEquals(setOf("she", "he"), matcher.findAll("she said he").get("profanity"));
+    }
+
+    @Test
+    public void reportsEveryCategoryInOneScan() {
+        KeywordMatcher matcher = matcher("profanity:damn", "hate_speech:stupid", "harassment:loser");
+
+        Map<String, Set<String>> matches = matcher.findAll("You stupid loser, damn");
+        assertEquals(Arrays.asList("hate_speech", "harassment", "profanity"),
+            Arrays.asList(matches.keySet().toArray(new String[0])));
+        assertEquals(setOf("stupid"), matches.get("hate_speech"));
+        assertEquals(setOf("loser"), matches.get("harassment"));
+        assertEquals(setOf("damn"), matches.get("profanity"));
+    }
+
+    @Test
+    public void reportsATermListedInSeveralCategoriesForEach() {
+        KeywordMatcher matcher = matcher("hate_speech:idiot", "harassment:idiot");
+
+        Map<String, Set<String>> matches = matcher.findAll("idiot");
+        assertEquals(setOf("idiot"), matches.get("hate_speech"));
+        assertEquals(setOf("idiot"), matches.get("harassment"));
+    }
+
+    @Test
+    public void ignoresBlankAndDuplicateTerms() {
+        KeywordMatcher matcher = matcher("profanity:damn, DAMN ,,crap");
+
+        assertEquals(2, matcher.getTermCount());
+        assertTrue(matcher.findAll("").isEmpty());
+        assertTrue(matcher.findAll(null).isEmpty());
+    }
+
+    private static Set<String> setOf(String... words) {
+        return new LinkedHashSet<>(Arrays.asList(words));
+    }
+}
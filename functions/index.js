@@ -223,4 +223,782 @@ exports.cleanupOldNotificationRequests = functions.pubsub
         console.log(`Cleaned up ${oldRequests.size} old notification requests`);
         
         return null;
-    });
\ No newline at end of file
+    });
+
+// Firestore allows 500 writes per batch
+const MAX_BATCH_WRITES = 500;
+// Posts copied into a timeline when two users become friends
+const TIMELINE_BACKFILL_LIMIT = 50;
+
+/**
+ * Get the IDs of everyone with an accepted friendship with the given user
+ * @param {string} userId the user whose friends to list
+ * @return {Promise<string[]>} the friends' user IDs
+ */
+async function getAcceptedFriendIds(userId) {
+    const friendships = await admin.firestore().collection('friends')
+        .where('participants', 'array-contains', userId)
+        .where('status', '==', 'accepted')
+        .get();
+
+    const friendIds = new Set();
+    friendships.docs.forEach((doc) => {
+        const friendship = doc.data();
+        friendIds.add(friendship.userId1 === userId ? friendship.userId2 : friendship.userId1);
+    });
+    friendIds.delete(undefined);
+    return Array.from(friendIds);
+}
+
+/**
+ * Build the timeline entry stored for a post
+ * @param {string} postId the post's document ID
+ * @param {Object} post the post document data
+ * @param {Timestamp} fallbackTimestamp used when the post has no timestamp yet
+ * @return {Object} the entry for timelines/{userId}/entries/{postId}
+ */
+function timelineEntry(postId, post, fallbackTimestamp) {
+    return {
+        postId: postId,
+        authorId: post.userId || '',
+        timestamp: post.timestamp || fallbackTimestamp,
+    };
+}
+
+/**
+ * Get an author's latest posts, newest first, to copy into timelines
+ * @param {string} authorId the author's user ID
+ * @return {Promise<QueryDocumentSnapshot[]>} up to TIMELINE_BACKFILL_LIMIT posts
+ */
+async function getRecentPosts(authorId) {
+    const recentPosts = await admin.firestore()
+        .collection('posts')
+        .where('userId', '==', authorId)
+        .orderBy('timestamp', 'desc')
+        .limit(TIMELINE_BACKFILL_LIMIT)
+        .get();
+    return recentPosts.docs;
+}
+
+/**
+ * Commit document writes in chunks that fit in a single batch
+ * @param {DocumentReference[]} refs the documents to write
+ * @param {function(WriteBatch, DocumentReference)} writeFn adds the write for one document to a batch
+ */
+async function commitInBatches(refs, writeFn) {
+    for (let i = 0; i < refs.length; i += MAX_BATCH_WRITES) {
+        const batch = admin.firestore().batch();
+        refs.slice(i, i + MAX_BATCH_WRITES).forEach((ref) => writeFn(batch, ref));
+        await batch.commit();
+    }
+}
+
+/**
+ * Fan a new post out to the timelines of its author and the author's friends
+ * Triggers on: /posts/{postId}
+ * Timeline entries live at /timelines/{userId}/entries/{postId}
+ */
+exports.fanOutPostToTimelines = functions.firestore
+    .document('posts/{postId}')
+    .onCreate(async (snap, context) => {
+        const post = snap.data();
+        const postId = context.params.postId;
+
+        if (!post.userId) {
+            console.log('Post has no author, skipping timeline fan-out:', postId);
+            return null;
+        }
+
+        const friendIds = await getAcceptedFriendIds(post.userId);
+        const recipients = [post.userId, ...friendIds];
+        const entry = timelineEntry(postId, post, snap.createTime);
+
+        const refs = recipients.map((uid) => admin.firestore()
+            .collection('timelines').doc(uid)
+            .collection('entries').doc(postId));
+        await commitInBatches(refs, (batch, ref) => batch.set(ref, entry));
+
+        console.log(`Fanned out post ${postId} to ${recipients.length} timelines`);
+        return null;
+    });
+
+/**
+ * Remove a deleted post from every timeline it was fanned out to
+ * Triggers on: /posts/{postId}
+ */
+exports.removePostFromTimelines = functions.firestore
+    .document('posts/{postId}')
+    .onDelete(async (snap, context) => {
+        const postId = context.params.postId;
+
+        const entries = await admin.firestore()
+            .collectionGroup('entries')
+            .where('postId', '==', postId)
+            .get();
+        await commitInBatches(entries.docs.map((doc) => doc.ref), (batch, ref) => batch.delete(ref));
+
+        console.log(`Removed post ${postId} from ${entries.size} timelines`);
+        return null;
+    });
+
+/**
+ * Copy each user's recent posts into the other's timeline when a friend request is accepted
+ * Triggers on: /friends/{friendshipId}
+ */
+exports.backfillTimelinesOnFriendAccepted = functions.firestore
+    .document('friends/{friendshipId}')
+    .onUpdate(async (change, context) => {
+        const before = change.before.data();
+        const after = change.after.data();
+
+        if (before.status === 'accepted' || after.status !== 'accepted') {
+            return null;
+        }
+
+        const copyRecentPosts = async (authorId, recipientId) => {
+            const recentPosts = await getRecentPosts(authorId);
+
+            const batch = admin.firestore().batch();
+            recentPosts.forEach((doc) => {
+                const ref = admin.firestore()
+                    .collection('timelines').doc(recipientId)
+                    .collection('entries').doc(doc.id);
+                batch.set(ref, timelineEntry(doc.id, doc.data(), doc.createTime));
+            });
+            await batch.commit();
+            return recentPosts.length;
+        };
+
+        const [toUser2, toUser1] = await Promise.all([
+            copyRecentPosts(after.userId1, after.userId2),
+            copyRecentPosts(after.userId2, after.userId1),
+        ]);
+
+        console.log(`Backfilled timelines for friendship ${context.params.friendshipId}:`, toUser2, toUser1);
+        return null;
+    });
+
+/**
+ * One-off backfill of timelines for posts and friendships from before the timeline functions existed
+ * Copies each user's latest posts into their own timeline and the timelines of their friends
+ * Callable by admins only; run once before shipping the app version that reads timelines
+ */
+exports.backfillTimelines = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    const caller = await db.collection('profiles').doc(context.auth.uid).get();
+    if (!caller.exists || !caller.data().isAdmin) {
+        throw new functions.https.HttpsError('permission-denied', 'Admins only');
+    }
+
+    const [profiles, friendships] = await Promise.all([
+        db.collection('profiles').select().get(),
+        db.collection('friends').where('status', '==', 'accepted').get(),
+    ]);
+    // Everyone gets their own posts, including users without friends
+    const friendsOf = new Map(profiles.docs.map((doc) => [doc.id, new Set()]));
+    const addFriend = (userId, friendId) => {
+        if (!friendsOf.has(userId)) {
+            friendsOf.set(userId, new Set());
+        }
+        friendsOf.get(userId).add(friendId);
+    };
+    friendships.docs.forEach((doc) => {
+        const friendship = doc.data();
+        if (friendship.userId1 && friendship.userId2) {
+            addFriend(friendship.userId1, friendship.userId2);
+            addFriend(friendship.userId2, friendship.userId1);
+        }
+    });
+
+    let entries = 0;
+    for (const [authorId, friendIds] of friendsOf) {
+        const recentPosts = await getRecentPosts(authorId);
+        const writes = [];
+        [authorId, ...friendIds].forEach((recipientId) => {
+            recentPosts.forEach((doc) => {
+                writes.push({
+                    ref: db.collection('timelines').doc(recipientId).collection('entries').doc(doc.id),
+                    entry: timelineEntry(doc.id, doc.data(), doc.createTime),
+                });
+            });
+        });
+
+        for (let i = 0; i < writes.length; i += MAX_BATCH_WRITES) {
+            const batch = db.batch();
+            writes.slice(i, i + MAX_BATCH_WRITES).forEach((write) => batch.set(write.ref, write.entry));
+            await batch.commit();
+        }
+        entries += writes.length;
+    }
+
+    console.log(`Backfilled ${entries} timeline entries for ${friendsOf.size} users`);
+    return {users: friendsOf.size, entries: entries};
+});
+
+/**
+ * Remove a former friend's posts from each user's timeline when an accepted friendship is deleted
+ * Triggers on: /friends/{friendshipId}
+ */
+exports.pruneTimelinesOnFriendRemoved = functions.firestore
+    .document('friends/{friendshipId}')
+    .onDelete(async (snap, context) => {
+        const friendship = snap.data();
+
+        if (friendship.status !== 'accepted') {
+            return null;
+        }
+        if (snap.id !== friendshipPairId(friendship.userId1, friendship.userId2)) {
+            // migrateFriendshipIds moves friendships to their pair ID; only prune if it wasn't moved
+            const moved = await admin.firestore().collection('friends')
+                .doc(friendshipPairId(friendship.userId1, friendship.userId2))
+                .get();
+            if (moved.exists && moved.data().status === 'accepted') {
+                return null;
+            }
+        }
+
+        const entriesFrom = (authorId, ownerId) => admin.firestore()
+            .collection('timelines').doc(ownerId)
+            .collection('entries')
+            .where('authorId', '==', authorId)
+            .get();
+
+        const [fromUser1, fromUser2] = await Promise.all([
+            entriesFrom(friendship.userId1, friendship.userId2),
+            entriesFrom(friendship.userId2, friendship.userId1),
+        ]);
+        const refs = [...fromUser1.docs, ...fromUser2.docs].map((doc) => doc.ref);
+        await commitInBatches(refs, (batch, ref) => batch.delete(ref));
+
+        console.log(`Pruned ${refs.length} timeline entries for friendship ${context.params.friendshipId}`);
+        return null;
+    });
+
+// Sharded post counters, see PostCounters.java in the app
+const COUNTER_SHARDS = 'counter_shards';
+const COUNTER_STATE_DOC = 'system/postCounterAggregation';
+
+/**
+ * Fold the deltas in each post's counter shards into the post's reactions and commentCount
+ * Runs every minute and only looks at shards written since the previous run
+ * Shards are decremented by exactly what was folded, so increments that land meanwhile are kept
+ */
+exports.aggregatePostCounters = functions.pubsub
+    .schedule('every 1 minutes')
+    .onRun(async (context) => {
+        const db = admin.firestore();
+        const stateRef = db.doc(COUNTER_STATE_DOC);
+        const runStartedAt = admin.firestore.Timestamp.now();
+
+        const state = await stateRef.get();
+        const since = state.exists && state.data().lastRunStartedAt ?
+            state.data().lastRunStartedAt :
+            admin.firestore.Timestamp.fromMillis(0);
+
+        const changedShards = await db.collectionGroup(COUNTER_SHARDS)
+            .where('updatedAt', '>=', since)
+            .get();
+
+        // Collect the posts with changed shards, then fold all of each post's shards
+        const postRefs = new Map();
+        changedShards.docs.forEach((doc) => {
+            const postRef = doc.ref.parent.parent;
+            postRefs.set(postRef.path, postRef);
+        });
+
+        for (const postRef of postRefs.values()) {
+            const shards = await postRef.collection(COUNTER_SHARDS).get();
+            const batch = db.batch();
+            const postUpdate = {};
+            let hasChanges = false;
+
+            shards.docs.forEach((shard) => {
+                const data = shard.data();
+                const shardUpdate = {};
+
+                Object.entries(data.reactions || {}).forEach(([type, delta]) => {
+                    if (delta) {
+                        const key = `reactions.${type}`;
+                        postUpdate[key] = (postUpdate[key] || 0) + delta;
+                        shardUpdate[key] = admin.firestore.FieldValue.increment(-delta);
+                    }
+                });
+                if (data.commentCount) {
+                    postUpdate.commentCount = (postUpdate.commentCount || 0) + data.commentCount;
+                    shardUpdate.commentCount = admin.firestore.FieldValue.increment(-data.commentCount);
+                }
+
+                if (Object.keys(shardUpdate).length > 0) {
+                    batch.update(shard.ref, shardUpdate);
+                    hasChanges = true;
+                }
+            });
+
+            if (!hasChanges) {
+                continue;
+            }
+
+            const increments = {};
+            Object.entries(postUpdate).forEach(([key, total]) => {
+                increments[key] = admin.firestore.FieldValue.increment(total);
+            });
+            batch.update(postRef, increments);
+
+            try {
+                await batch.commit();
+            } catch (error) {
+                // Usually the post was deleted; its shards are cleaned up separately
+                console.error(`Error folding counters for ${postRef.path}:`, error);
+            }
+        }
+
+        await stateRef.set({lastRunStartedAt: runStartedAt});
+        console.log(`Aggregated counters for ${postRefs.size} posts`);
+        return null;
+    });
+
+/**
+ * Delete a post's counter shards and reaction documents when the post is deleted
+ * Triggers on: /posts/{postId}
+ */
+exports.removePostCounters = functions.firestore
+    .document('posts/{postId}')
+    .onDelete(async (snap, context) => {
+        const [shards, reactions] = await Promise.all([
+            snap.ref.collection(COUNTER_SHARDS).get(),
+            snap.ref.collection('reactions').get(),
+        ]);
+        const refs = [...shards.docs, ...reactions.docs].map((doc) => doc.ref);
+        await commitInBatches(refs, (batch, ref) => batch.delete(ref));
+
+        console.log(`Removed ${refs.length} counter documents for post ${context.params.postId}`);
+        return null;
+    });
+
+/**
+ * One-off migration of the userReactions arrays on posts to posts/{postId}/reactions/{userId}
+ * Callable by admins only; run once before shipping the app version that uses sharded counters
+ */
+exports.migrateReactionMembership = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    const profile = await db.collection('profiles').doc(context.auth.uid).get();
+    if (!profile.exists || !profile.data().isAdmin) {
+        throw new functions.https.HttpsError('permission-denied', 'Admins only');
+    }
+
+    const posts = await db.collection('posts').get();
+    let migratedPosts = 0;
+
+    for (const post of posts.docs) {
+        const userReactions = post.data().userReactions;
+        if (!userReactions) {
+            continue;
+        }
+
+        const writes = [];
+        Object.entries(userReactions).forEach(([type, userIds]) => {
+            (userIds || []).forEach((userId) => {
+                writes.push({
+                    ref: post.ref.collection('reactions').doc(userId),
+                    data: {
+                        userId: userId,
+                        postId: post.id,
+                        type: type,
+                        timestamp: admin.firestore.FieldValue.serverTimestamp(),
+                    },
+                });
+            });
+        });
+
+        for (let i = 0; i < writes.length; i += MAX_BATCH_WRITES - 1) {
+            const batch = db.batch();
+            writes.slice(i, i + MAX_BATCH_WRITES - 1).forEach((write) => batch.set(write.ref, write.data));
+            if (i + MAX_BATCH_WRITES - 1 >= writes.length) {
+                batch.update(post.ref, {userReactions: admin.firestore.FieldValue.delete()});
+            }
+            await batch.commit();
+        }
+        if (writes.length === 0) {
+            await post.ref.update({userReactions: admin.firestore.FieldValue.delete()});
+        }
+        migratedPosts++;
+    }
+
+    console.log(`Migrated reaction membership for ${migratedPosts} posts`);
+    return {migratedPosts: migratedPosts};
+});
+
+// User search index, see UserSearch.java in the app
+const SEARCH_MAX_WORD_LENGTH = 20;
+const SEARCH_MAX_PREFIX_LENGTH = 30;
+
+/**
+ * Lowercase, strip accents and collapse everything that isn't a letter or digit to single spaces
+ * Must match UserSearch.normalize in the app
+ * @param {string} text a name or query
+ * @return {string} the normalized text
+ */
+function normalizeSearchText(text) {
+    return (text || '')
+        .normalize('NFD')
+        .replace(/\p{M}/gu, '')
+        .toLowerCase()
+        .replace(/[^\p{L}\p{N}]+/gu, ' ')
+        .trim();
+}
+
+/**
+ * Tokens a profile can be found by:
+ * every substring of every name word (prefix and infix matches on single words)
+ * and every prefix of each whole name (queries spanning several words).
+ * The actual name is only indexed when the user has chosen to show it.
+ * @param {Object} profile the profile document data
+ * @return {string[]} the distinct tokens
+ */
+function profileSearchTokens(profile) {
+    const tokens = new Set();
+    const names = [profile.displayName];
+    if (profile.privacy && profile.privacy.showActualName === true) {
+        names.push(profile.actualName);
+    }
+    names.forEach((name) => {
+        const normalized = normalizeSearchText(name);
+        if (!normalized) {
+            return;
+        }
+        const fullName = normalized.slice(0, SEARCH_MAX_PREFIX_LENGTH);
+        for (let i = 1; i <= fullName.length; i++) {
+            tokens.add(fullName.slice(0, i));
+        }
+        normalized.split(' ').forEach((word) => {
+            const w = word.slice(0, SEARCH_MAX_WORD_LENGTH);
+            for (let start = 0; start < w.length; start++) {
+                for (let end = start + 1; end <= w.length; end++) {
+                    tokens.add(w.slice(start, end));
+                }
+            }
+        });
+    });
+    return Array.from(tokens);
+}
+
+/**
+ * Fields to write so a profile's search index matches its names, or null if already up to date
+ * @param {Object} profile the profile document data
+ * @return {?Object} the searchTokens and searchName fields, or null
+ */
+function searchIndexUpdate(profile) {
+    const searchTokens = profileSearchTokens(profile);
+    const searchName = normalizeSearchText(profile.displayName);
+    const current = profile.searchTokens || [];
+    const unchanged = profile.searchName === searchName &&
+        current.length === searchTokens.length &&
+        searchTokens.every((token) => current.includes(token));
+    return unchanged ? null : {searchTokens: searchTokens, searchName: searchName};
+}
+
+/**
+ * Keep a profile's searchTokens and searchName in sync with its names
+ * Triggers on: /profiles/{userId}
+ */
+exports.updateProfileSearchTokens = functions.firestore
+    .document('profiles/{userId}')
+    .onWrite(async (change, context) => {
+        if (!change.after.exists) {
+            return null;
+        }
+
+        // Our own update triggers this again; it finds nothing to change and stops there
+        const update = searchIndexUpdate(change.after.data());
+        if (!update) {
+            return null;
+        }
+
+        await change.after.ref.update(update);
+        console.log(`Updated search tokens for profile ${context.params.userId}`);
+        return null;
+    });
+
+/**
+ * One-off backfill of search tokens for profiles created before the index existed
+ * Callable by admins only
+ */
+exports.backfillProfileSearchTokens = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    const caller = await db.collection('profiles').doc(context.auth.uid).get();
+    if (!caller.exists || !caller.data().isAdmin) {
+        throw new functions.https.HttpsError('permission-denied', 'Admins only');
+    }
+
+    const profiles = await db.collection('profiles').get();
+    const updates = [];
+    profiles.docs.forEach((doc) => {
+        const update = searchIndexUpdate(doc.data());
+        if (update) {
+            updates.push({ref: doc.ref, update: update});
+        }
+    });
+
+    for (let i = 0; i < updates.length; i += MAX_BATCH_WRITES) {
+        const batch = db.batch();
+        updates.slice(i, i + MAX_BATCH_WRITES).forEach((item) => batch.update(item.ref, item.update));
+        await batch.commit();
+    }
+
+    console.log(`Backfilled search tokens for ${updates.length} profiles`);
+    return {updatedProfiles: updates.length};
+});
+
+// Per-user unread notification counters, read by the app's notification badge
+const NOTIFICATION_COUNTS = 'notification_counts';
+// IDs of trigger events already applied to the counters, so a retried event isn't counted twice.
+// expireAt is meant for a TTL policy; events are not retried after a week
+const NOTIFICATION_COUNT_EVENTS = 'notification_count_events';
+const NOTIFICATION_COUNT_EVENT_RETENTION_MS = 7 * 24 * 60 * 60 * 1000;
+
+/**
+ * Whether a notification counts as unread. Must match the isRead == false queries in the app
+ * and in recountUnreadNotifications; the app always writes isRead, so a missing field isn't unread
+ * @param {?Object} notification the notification document data, or null if there is none
+ * @return {boolean} true if it is an unread notification for a user
+ */
+function isUnreadNotification(notification) {
+    return !!notification && notification.isRead === false && !!notification.userId;
+}
+
+/**
+ * Keep notification_counts/{userId}.unreadCount in step with the user's unread notifications
+ * Each event is applied at most once, even when the trigger is retried
+ * Triggers on: /notifications/{notificationId}
+ */
+exports.updateUnreadNotificationCount = functions.firestore
+    .document('notifications/{notificationId}')
+    .onWrite(async (change, context) => {
+        const before = change.before.exists ? change.before.data() : null;
+        const after = change.after.exists ? change.after.data() : null;
+
+        const deltas = {};
+        if (isUnreadNotification(before)) {
+            deltas[before.userId] = (deltas[before.userId] || 0) - 1;
+        }
+        if (isUnreadNotification(after)) {
+            deltas[after.userId] = (deltas[after.userId] || 0) + 1;
+        }
+        const changes = Object.entries(deltas).filter(([, delta]) => delta !== 0);
+        if (changes.length === 0) {
+            return null;
+        }
+
+        const db = admin.firestore();
+        const eventRef = db.collection(NOTIFICATION_COUNT_EVENTS).doc(context.eventId);
+        await db.runTransaction(async (transaction) => {
+            const event = await transaction.get(eventRef);
+            if (event.exists) {
+                return;
+            }
+            changes.forEach(([userId, delta]) => {
+                transaction.set(db.collection(NOTIFICATION_COUNTS).doc(userId), {
+                    unreadCount: admin.firestore.FieldValue.increment(delta),
+                    updatedAt: admin.firestore.FieldValue.serverTimestamp(),
+                }, {merge: true});
+            });
+            transaction.set(eventRef, {
+                expireAt: admin.firestore.Timestamp.fromMillis(Date.now() + NOTIFICATION_COUNT_EVENT_RETENTION_MS),
+            });
+        });
+        return null;
+    });
+
+/**
+ * Recount unread notifications from scratch and overwrite the counter documents, one transaction per user
+ * Callable by any user for their own counter, and by admins for every user (pass { allUsers: true })
+ * Run once with allUsers before shipping the app version that reads the counters
+ */
+exports.recountUnreadNotifications = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    let userIds = [context.auth.uid];
+    if (data && data.allUsers) {
+        const caller = await db.collection('profiles').doc(context.auth.uid).get();
+        if (!caller.exists || !caller.data().isAdmin) {
+            throw new functions.https.HttpsError('permission-denied', 'Admins only');
+        }
+        const profiles = await db.collection('profiles').select().get();
+        userIds = profiles.docs.map((doc) => doc.id);
+    }
+
+    // The counter is read in the same transaction as the count, so an increment from
+    // updateUnreadNotificationCount that lands in between makes the transaction retry
+    for (const userId of userIds) {
+        const counterRef = db.collection(NOTIFICATION_COUNTS).doc(userId);
+        const unread = db.collection('notifications')
+            .where('userId', '==', userId)
+            .where('isRead', '==', false)
+            .count();
+        await db.runTransaction(async (transaction) => {
+            const [, result] = await Promise.all([transaction.get(counterRef), transaction.get(unread)]);
+            transaction.set(counterRef, {
+                unreadCount: result.data().count,
+                updatedAt: admin.firestore.FieldValue.serverTimestamp(),
+            });
+        });
+    }
+
+    console.log(`Recounted unread notifications for ${userIds.length} users`);
+    return {users: userIds.length};
+});
+
+/**
+ * The participants array a friendship document should have, or null if it already has it
+ * @param {Object} friendship the friendship document data
+ * @return {Array<string>|null} both user IDs, or null
+ */
+function missingParticipants(friendship) {
+    if (!friendship.userId1 || !friendship.userId2) {
+        return null;
+    }
+    const current = friendship.participants || [];
+    const complete = current.length === 2 &&
+        current.includes(friendship.userId1) &&
+        current.includes(friendship.userId2);
+    return complete ? null : [friendship.userId1, friendship.userId2];
+}
+
+/**
+ * Document ID for the friendship between two users, must match Friend.pairId in the app
+ * @param {string} userIdA one of the users
+ * @param {string} userIdB the other user
+ * @return {string} the sorted user IDs joined by an underscore
+ */
+function friendshipPairId(userIdA, userIdB) {
+    return userIdA < userIdB ? `${userIdA}_${userIdB}` : `${userIdB}_${userIdA}`;
+}
+
+/**
+ * Add the participants array to friendships written by app versions that don't set it
+ * Triggers on: /friends/{friendshipId}
+ */
+exports.ensureFriendParticipants = functions.firestore
+    .document('friends/{friendshipId}')
+    .onWrite(async (change, context) => {
+        if (!change.after.exists) {
+            return null;
+        }
+        const participants = missingParticipants(change.after.data());
+        if (!participants) {
+            return null;
+        }
+        await change.after.ref.update({participants: participants});
+        return null;
+    });
+
+/**
+ * One-off backfill of the participants array on existing friendships
+ * Callable by admins only; run before shipping the app version that queries by participants
+ */
+exports.backfillFriendParticipants = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    const caller = await db.collection('profiles').doc(context.auth.uid).get();
+    if (!caller.exists || !caller.data().isAdmin) {
+        throw new functions.https.HttpsError('permission-denied', 'Admins only');
+    }
+
+    const friendships = await db.collection('friends').get();
+    const updates = [];
+    friendships.docs.forEach((doc) => {
+        const participants = missingParticipants(doc.data());
+        if (participants) {
+            updates.push({ref: doc.ref, participants: participants});
+        }
+    });
+
+    for (let i = 0; i < updates.length; i += MAX_BATCH_WRITES) {
+        const batch = db.batch();
+        updates.slice(i, i + MAX_BATCH_WRITES)
+            .forEach((item) => batch.update(item.ref, {participants: item.participants}));
+        await batch.commit();
+    }
+
+    console.log(`Backfilled participants for ${updates.length} friendships`);
+    return {updatedFriendships: updates.length};
+});
+
+/**
+ * One-off migration of friendships with random document IDs to their pair-keyed ID
+ * The app only looks friendships up by pair ID; if both documents exist, the accepted one is kept
+ * Callable by admins only; run before shipping the app version that dropped the legacy lookup
+ */
+exports.migrateFriendshipIds = functions.https.onCall(async (data, context) => {
+    if (!context.auth) {
+        throw new functions.https.HttpsError('unauthenticated', 'User must be authenticated');
+    }
+
+    const db = admin.firestore();
+    const caller = await db.collection('profiles').doc(context.auth.uid).get();
+    if (!caller.exists || !caller.data().isAdmin) {
+        throw new functions.https.HttpsError('permission-denied', 'Admins only');
+    }
+
+    const friendships = await db.collection('friends').get();
+    const byId = new Map(friendships.docs.map((doc) => [doc.id, doc]));
+    const moves = [];
+    friendships.docs.forEach((doc) => {
+        const friendship = doc.data();
+        if (!friendship.userId1 || !friendship.userId2) {
+            return;
+        }
+        const pairId = friendshipPairId(friendship.userId1, friendship.userId2);
+        if (doc.id === pairId) {
+            return;
+        }
+        const existing = byId.get(pairId);
+        const keepExisting = existing && (existing.data().status === 'accepted' || friendship.status !== 'accepted');
+        moves.push({
+            from: doc.ref,
+            to: db.collection('friends').doc(pairId),
+            friendship: keepExisting ? null : {
+                ...friendship,
+                participants: [friendship.userId1, friendship.userId2],
+            },
+        });
+        // A later duplicate of the same pair compares against the document this one left behind
+        if (!keepExisting) {
+            byId.set(pairId, doc);
+        }
+    });
+
+    // Each move is a set and a delete
+    const movesPerBatch = Math.floor(MAX_BATCH_WRITES / 2);
+    for (let i = 0; i < moves.length; i += movesPerBatch) {
+        const batch = db.batch();
+        moves.slice(i, i + movesPerBatch).forEach((move) => {
+            if (move.friendship) {
+                batch.set(move.to, move.friendship);
+            }
+            batch.delete(move.from);
+        });
+        await batch.commit();
+    }
+
+    console.log(`Moved ${moves.length} friendships to pair-keyed IDs`);
+    return {movedFriendships: moves.length};
+});